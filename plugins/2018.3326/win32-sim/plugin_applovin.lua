@@ -46,6 +46,22 @@ function lib.showDebugger()
     showWarning("applovin.showDebugger()")
 end
 
+function lib.getAdCounts()
+    showWarning("applovin.getAdCounts()")
+end
+
+function lib.getMetrics()
+    showWarning("applovin.getMetrics()")
+end
+
+function lib.getDiagnosticLog()
+    showWarning("applovin.getDiagnosticLog()")
+end
+
+function lib.readEventJournal()
+    showWarning("applovin.readEventJournal()")
+end
+
 
 
 -------------------------------------------------------------------------------
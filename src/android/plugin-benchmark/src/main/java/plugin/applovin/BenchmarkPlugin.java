@@ -0,0 +1,66 @@
+package plugin.applovin;
+
+import android.os.Looper;
+
+import com.applovin.adview.AppLovinAdView;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.LuaState;
+
+// the plugin loaded into the stand-in runtime of plugin-jvm, with a Lua listener that drops the events,
+// so a benchmark can call into it for as long as it runs without anything piling up
+class BenchmarkPlugin {
+    private static final JavaFunction IGNORING_LISTENER = new JavaFunction() {
+        @Override
+        public int invoke(LuaState L) {
+            return 0;
+        }
+    };
+
+    final PluginHarness harness;
+
+    // set to drop the banner loads, so banners can be loaded again and again without the loads piling up
+    volatile boolean isDroppingBannerLoads = false;
+
+    BenchmarkPlugin(Object... initOptions) {
+        StandInAdProvider provider = new StandInAdProvider() {
+            @Override
+            public synchronized void loadBanner(AppLovinAdView bannerAd, AppLovinAdLoadListener listener) {
+                if (!isDroppingBannerLoads) {
+                    super.loadBanner(bannerAd, listener);
+                }
+            }
+        };
+        harness = new PluginHarness(new LuaState(), provider);
+
+        Object[] keyValues = new Object[initOptions.length + 2];
+        keyValues[0] = "sdkKey";
+        keyValues[1] = "key";
+        System.arraycopy(initOptions, 0, keyValues, 2, initOptions.length);
+        harness.call("init", IGNORING_LISTENER, harness.table(keyValues));
+        harness.idle();
+    }
+
+    // load and fill an ad, returns once the plugin has it
+    void load(String adType, Object... options) {
+        harness.call("load", adType, harness.table(options));
+        harness.idle();
+        harness.provider.fill(adType);
+        harness.idle();
+    }
+
+    // JMH may run the iterations on another thread than the setup, make the current one the main thread
+    void bindMainThread() {
+        Looper.prepareMainLooper();
+    }
+
+    // run what the last call has posted to the main thread and the Corona runtime
+    void pump() {
+        Looper.getMainLooper().runDueMessages();
+        harness.runtime.runPendingTasks();
+    }
+
+    void close() {
+        harness.close();
+    }
+}
@@ -0,0 +1,68 @@
+package plugin.applovin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+
+// one SDK callback per operation, from the delegate through the event record and the Corona runtime
+// to the Lua listener, delivered one task per event or batched (init option 'batchEvents')
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+    @Param({"false", "true"})
+    public boolean batchEvents;
+
+    private BenchmarkPlugin plugin;
+    private StandInAdProvider.Show show;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = new BenchmarkPlugin("batchEvents", batchEvents);
+        plugin.load(INTERSTITIAL, "poolSize", 1);
+        plugin.harness.call("show", "interstitial");
+        plugin.harness.idle();
+        show = plugin.harness.provider.getLastShow();
+    }
+
+    @Setup(Level.Iteration)
+    public void bindMainThread() {
+        plugin.bindMainThread();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.close();
+    }
+
+    // an event with the common fields only
+    @Benchmark
+    public void adClicked() {
+        show.clickListener.adClicked(show.ad);
+        plugin.harness.runtime.runPendingTasks();
+    }
+
+    // an event with a data table
+    @Benchmark
+    public void videoPlaybackEnded() {
+        show.playbackListener.videoPlaybackEnded(show.ad, 100, true);
+        plugin.harness.runtime.runPendingTasks();
+    }
+}
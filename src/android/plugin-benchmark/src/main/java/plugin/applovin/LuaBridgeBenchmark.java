@@ -0,0 +1,61 @@
+package plugin.applovin;
+
+import com.naef.jnlua.LuaTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+
+// one Lua call into the plugin per operation: the ad state lookup of isLoaded(), and building and
+// logging the error message of a rejected call
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LuaBridgeBenchmark {
+    private BenchmarkPlugin plugin;
+    private LuaTable invalidAdType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = new BenchmarkPlugin();
+        plugin.load(INTERSTITIAL, "poolSize", 1);
+        invalidAdType = plugin.harness.table();
+    }
+
+    @Setup(Level.Iteration)
+    public void bindMainThread() {
+        plugin.bindMainThread();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.close();
+    }
+
+    @Benchmark
+    public Object isLoaded() {
+        return plugin.harness.call("isLoaded", "interstitial");
+    }
+
+    // "adType (string) expected, got: table"
+    @Benchmark
+    public Object logRejectedCall() {
+        return plugin.harness.call("isLoaded", invalidAdType);
+    }
+}
@@ -0,0 +1,84 @@
+package plugin.applovin;
+
+import com.naef.jnlua.LuaTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static plugin.applovin.StandInAdProvider.BANNER;
+
+// load() and show() of a banner with an options table, one Lua call per operation. the banner is on screen,
+// so show() parses its options and is then turned down on the UI thread, and load() starts a load that is
+// dropped. logging is off, so the rejected show() doesn't build a message. the UI thread part runs on the
+// calling thread, it is the main thread of the stand-in runtime
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionParsingBenchmark {
+    private BenchmarkPlugin plugin;
+    private LuaTable loadOptions;
+    private LuaTable showAlignedOptions;
+    private LuaTable showOffsetOptions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        plugin = new BenchmarkPlugin("logLevel", "none");
+        plugin.load(BANNER);
+        plugin.harness.call("show", "banner");
+        plugin.pump();
+        plugin.isDroppingBannerLoads = true;
+
+        PluginHarness harness = plugin.harness;
+        loadOptions = harness.table("bannerSize", "standard", "doubleBuffer", false);
+        showAlignedOptions = harness.table("y", "top");
+        showOffsetOptions = harness.table("y", 100.0);
+    }
+
+    @Setup(Level.Iteration)
+    public void bindMainThread() {
+        plugin.bindMainThread();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plugin.close();
+    }
+
+    @Benchmark
+    public Object loadBanner() {
+        Object result = plugin.harness.call("load", "banner", loadOptions);
+        plugin.pump();
+        return result;
+    }
+
+    // y as an alignment string
+    @Benchmark
+    public Object showBannerAligned() {
+        Object result = plugin.harness.call("show", "banner", showAlignedOptions);
+        plugin.pump();
+        return result;
+    }
+
+    // y as a number
+    @Benchmark
+    public Object showBannerAtOffset() {
+        Object result = plugin.harness.call("show", "banner", showOffsetOptions);
+        plugin.pump();
+        return result;
+    }
+}
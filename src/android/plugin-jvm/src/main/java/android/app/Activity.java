@@ -0,0 +1,43 @@
+package android.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Display;
+import android.view.WindowManager;
+
+// stand-in for the JVM build of the plugin
+public class Activity extends Context {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Resources resources = new Resources();
+    private final Display display = new Display();
+    private final WindowManager windowManager = new WindowManager() {
+        @Override
+        public Display getDefaultDisplay() {
+            return display;
+        }
+    };
+
+    public SharedPreferences getPreferences(int mode) {
+        return getSharedPreferences(getClass().getName(), mode);
+    }
+
+    public final void runOnUiThread(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        }
+        else {
+            handler.post(action);
+        }
+    }
+
+    public WindowManager getWindowManager() {
+        return windowManager;
+    }
+
+    public Resources getResources() {
+        return resources;
+    }
+}
@@ -0,0 +1,31 @@
+package android.app;
+
+// stand-in for the JVM build of the plugin
+public class ActivityManager {
+    private volatile boolean lowRamDevice;
+    private volatile boolean lowMemory;
+
+    public boolean isLowRamDevice() {
+        return lowRamDevice;
+    }
+
+    public void getMemoryInfo(MemoryInfo outInfo) {
+        outInfo.lowMemory = lowMemory;
+    }
+
+    // stand-in only
+    public void setLowRamDevice(boolean lowRamDevice) {
+        this.lowRamDevice = lowRamDevice;
+    }
+
+    // stand-in only
+    public void setLowMemory(boolean lowMemory) {
+        this.lowMemory = lowMemory;
+    }
+
+    public static class MemoryInfo {
+        public boolean lowMemory;
+        public long availMem;
+        public long threshold;
+    }
+}
@@ -0,0 +1,10 @@
+package android.content;
+
+import android.content.res.Configuration;
+
+// stand-in for the JVM build of the plugin
+public interface ComponentCallbacks {
+    void onConfigurationChanged(Configuration newConfig);
+
+    void onLowMemory();
+}
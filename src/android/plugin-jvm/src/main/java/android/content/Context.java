@@ -0,0 +1,93 @@
+package android.content;
+
+import android.app.ActivityManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// stand-in for the JVM build of the plugin. preferences live in memory and files go to a temporary directory
+public class Context {
+    public static final int MODE_PRIVATE = 0;
+    public static final String ACTIVITY_SERVICE = "activity";
+
+    private final ActivityManager activityManager = new ActivityManager();
+    private final List<ComponentCallbacks> componentCallbacks = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> preferences = new HashMap<>();
+    private File filesDir;
+
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    public Object getSystemService(String name) {
+        return ACTIVITY_SERVICE.equals(name) ? activityManager : null;
+    }
+
+    public void registerComponentCallbacks(ComponentCallbacks callback) {
+        componentCallbacks.add(callback);
+    }
+
+    public void unregisterComponentCallbacks(ComponentCallbacks callback) {
+        componentCallbacks.remove(callback);
+    }
+
+    public synchronized File getFilesDir() {
+        if (filesDir == null) {
+            try {
+                filesDir = Files.createTempDirectory("files").toFile();
+                filesDir.deleteOnExit();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return filesDir;
+    }
+
+    public SharedPreferences getSharedPreferences(String name, int mode) {
+        return new SharedPreferences() {
+            @Override
+            public long getLong(String key, long defValue) {
+                synchronized (preferences) {
+                    Long value = preferences.get(key);
+                    return (value != null) ? value : defValue;
+                }
+            }
+
+            @Override
+            public Editor edit() {
+                final Map<String, Long> changes = new HashMap<>();
+
+                return new Editor() {
+                    @Override
+                    public Editor putLong(String key, long value) {
+                        changes.put(key, value);
+                        return this;
+                    }
+
+                    @Override
+                    public void apply() {
+                        synchronized (preferences) {
+                            preferences.putAll(changes);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    // stand-in only
+    public synchronized void setFilesDir(File filesDir) {
+        this.filesDir = filesDir;
+    }
+
+    // stand-in only
+    public List<ComponentCallbacks> getComponentCallbacks() {
+        return componentCallbacks;
+    }
+}
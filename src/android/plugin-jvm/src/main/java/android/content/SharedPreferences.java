@@ -0,0 +1,14 @@
+package android.content;
+
+// stand-in for the JVM build of the plugin
+public interface SharedPreferences {
+    long getLong(String key, long defValue);
+
+    Editor edit();
+
+    interface Editor {
+        Editor putLong(String key, long value);
+
+        void apply();
+    }
+}
@@ -0,0 +1,9 @@
+package android.content.res;
+
+// stand-in for the JVM build of the plugin
+public class Configuration {
+    public static final int ORIENTATION_PORTRAIT = 1;
+    public static final int ORIENTATION_LANDSCAPE = 2;
+
+    public int orientation = ORIENTATION_PORTRAIT;
+}
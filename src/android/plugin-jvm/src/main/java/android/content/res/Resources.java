@@ -0,0 +1,10 @@
+package android.content.res;
+
+// stand-in for the JVM build of the plugin
+public class Resources {
+    private final Configuration configuration = new Configuration();
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+}
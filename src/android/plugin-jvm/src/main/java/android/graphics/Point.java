@@ -0,0 +1,15 @@
+package android.graphics;
+
+// stand-in for the JVM build of the plugin
+public class Point {
+    public int x;
+    public int y;
+
+    public Point() {
+    }
+
+    public Point(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+}
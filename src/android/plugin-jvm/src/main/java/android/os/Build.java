@@ -0,0 +1,12 @@
+package android.os;
+
+// stand-in for the JVM build of the plugin
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = 29;
+    }
+
+    public static class VERSION_CODES {
+        public static final int KITKAT = 19;
+    }
+}
@@ -0,0 +1,93 @@
+package android.os;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// stand-in for the JVM build of the plugin. the main looper doesn't run by itself, the thread that
+// prepared it runs the messages that are due (runDueMessages()) whenever a test lets time pass
+public final class Looper {
+    private static final Looper mainLooper = new Looper();
+
+    private volatile Thread thread = Thread.currentThread();
+
+    // pending messages ordered by time, messages with the same time in the order they were posted
+    private final List<Message> messages = new ArrayList<>();
+
+    static final class Message {
+        final Runnable callback;
+        final long when;
+
+        Message(Runnable callback, long when) {
+            this.callback = callback;
+            this.when = when;
+        }
+    }
+
+    private Looper() {
+    }
+
+    // makes the calling thread the main thread
+    public static void prepareMainLooper() {
+        mainLooper.thread = Thread.currentThread();
+    }
+
+    public static Looper getMainLooper() {
+        return mainLooper;
+    }
+
+    public static Looper myLooper() {
+        return (Thread.currentThread() == mainLooper.thread) ? mainLooper : null;
+    }
+
+    public Thread getThread() {
+        return thread;
+    }
+
+    synchronized void enqueue(Runnable callback, long when) {
+        int index = messages.size();
+        while ((index > 0) && (messages.get(index - 1).when > when)) {
+            index--;
+        }
+        messages.add(index, new Message(callback, when));
+    }
+
+    synchronized void remove(Runnable callback) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).callback == callback) {
+                messages.remove(i);
+            }
+        }
+    }
+
+    private synchronized Runnable pollDueMessage() {
+        if (messages.isEmpty() || (messages.get(0).when > SystemClock.uptimeMillis())) {
+            return null;
+        }
+        return messages.remove(0).callback;
+    }
+
+    // stand-in only: runs the messages due by now, including those they post. returns the number of messages run
+    public int runDueMessages() {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("Messages must run on the main thread");
+        }
+
+        int count = 0;
+        Runnable callback;
+        while ((callback = pollDueMessage()) != null) {
+            callback.run();
+            count++;
+        }
+        return count;
+    }
+
+    // stand-in only: time of the next pending message, Long.MAX_VALUE if there is none
+    public synchronized long getNextMessageTime() {
+        return messages.isEmpty() ? Long.MAX_VALUE : messages.get(0).when;
+    }
+
+    // stand-in only: drop all pending messages
+    public synchronized void clear() {
+        messages.clear();
+    }
+}
@@ -0,0 +1,25 @@
+package android.os;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// stand-in for the JVM build of the plugin. time is virtual and only moves when a test advances it,
+// so delays, retries and expiry can be checked without waiting
+public final class SystemClock {
+    private static final AtomicLong now = new AtomicLong(100000);
+
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return now.get();
+    }
+
+    public static long uptimeMillis() {
+        return now.get();
+    }
+
+    // stand-in only
+    public static void advanceBy(long ms) {
+        now.addAndGet(ms);
+    }
+}
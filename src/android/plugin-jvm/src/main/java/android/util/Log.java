@@ -0,0 +1,38 @@
+package android.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// stand-in for the JVM build of the plugin. keeps the most recent messages for the tests to check
+public final class Log {
+    private static final int MAX_MESSAGES = 1000;
+    private static final ArrayDeque<String> messages = new ArrayDeque<>();
+
+    private Log() {
+    }
+
+    public static int i(String tag, String msg) {
+        synchronized (messages) {
+            if (messages.size() == MAX_MESSAGES) {
+                messages.removeFirst();
+            }
+            messages.addLast(msg);
+        }
+        return 0;
+    }
+
+    // stand-in only
+    public static List<String> getMessages() {
+        synchronized (messages) {
+            return new ArrayList<>(messages);
+        }
+    }
+
+    // stand-in only
+    public static void clear() {
+        synchronized (messages) {
+            messages.clear();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package android.view;
+
+import android.graphics.Point;
+
+// stand-in for the JVM build of the plugin
+public class Display {
+    private volatile int width = 1080;
+    private volatile int height = 1920;
+
+    public void getSize(Point outSize) {
+        outSize.x = width;
+        outSize.y = height;
+    }
+
+    // stand-in only
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+}
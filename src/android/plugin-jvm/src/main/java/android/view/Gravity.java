@@ -0,0 +1,9 @@
+package android.view;
+
+// stand-in for the JVM build of the plugin
+public class Gravity {
+    public static final int CENTER_HORIZONTAL = 1;
+    public static final int CENTER = 17;
+    public static final int TOP = 48;
+    public static final int BOTTOM = 80;
+}
@@ -0,0 +1,45 @@
+package android.view;
+
+// stand-in for the JVM build of the plugin
+public class View {
+    public static final int VISIBLE = 0;
+    public static final int INVISIBLE = 4;
+    public static final int GONE = 8;
+
+    private int visibility = VISIBLE;
+    private ViewGroup.LayoutParams layoutParams;
+    ViewGroup parent;
+
+    public void setVisibility(int visibility) {
+        this.visibility = visibility;
+    }
+
+    public int getVisibility() {
+        return visibility;
+    }
+
+    public ViewParent getParent() {
+        return parent;
+    }
+
+    public int getHeight() {
+        return 0;
+    }
+
+    public void bringToFront() {
+        if (parent != null) {
+            parent.bringChildToFront(this);
+        }
+    }
+
+    public ViewGroup.LayoutParams getLayoutParams() {
+        return layoutParams;
+    }
+
+    public void setLayoutParams(ViewGroup.LayoutParams params) {
+        layoutParams = params;
+    }
+
+    public void requestLayout() {
+    }
+}
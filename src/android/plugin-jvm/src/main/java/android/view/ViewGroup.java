@@ -0,0 +1,76 @@
+package android.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// stand-in for the JVM build of the plugin
+public class ViewGroup extends View implements ViewParent {
+    private final List<View> children = new ArrayList<>();
+
+    public void addView(View child, LayoutParams params) {
+        if (child.parent != null) {
+            throw new IllegalStateException("The specified child already has a parent. You must call removeView() on the child's parent first.");
+        }
+        child.setLayoutParams(params);
+        child.parent = this;
+        children.add(child);
+    }
+
+    public void removeView(View view) {
+        if (children.remove(view)) {
+            view.parent = null;
+        }
+    }
+
+    public void removeAllViews() {
+        for (View child : children) {
+            child.parent = null;
+        }
+        children.clear();
+    }
+
+    public int getChildCount() {
+        return children.size();
+    }
+
+    public View getChildAt(int index) {
+        return ((index >= 0) && (index < children.size())) ? children.get(index) : null;
+    }
+
+    void bringChildToFront(View child) {
+        if (children.remove(child)) {
+            children.add(child);
+        }
+    }
+
+    public static class LayoutParams {
+        public static final int MATCH_PARENT = -1;
+        public static final int WRAP_CONTENT = -2;
+
+        public int width;
+        public int height;
+
+        public LayoutParams(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public static class MarginLayoutParams extends LayoutParams {
+        public int leftMargin;
+        public int topMargin;
+        public int rightMargin;
+        public int bottomMargin;
+
+        public MarginLayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public void setMargins(int left, int top, int right, int bottom) {
+            leftMargin = left;
+            topMargin = top;
+            rightMargin = right;
+            bottomMargin = bottom;
+        }
+    }
+}
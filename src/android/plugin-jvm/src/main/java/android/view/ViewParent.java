@@ -0,0 +1,5 @@
+package android.view;
+
+// stand-in for the JVM build of the plugin
+public interface ViewParent {
+}
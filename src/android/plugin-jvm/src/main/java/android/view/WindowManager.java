@@ -0,0 +1,6 @@
+package android.view;
+
+// stand-in for the JVM build of the plugin
+public interface WindowManager {
+    Display getDefaultDisplay();
+}
@@ -0,0 +1,19 @@
+package android.widget;
+
+import android.view.ViewGroup;
+
+// stand-in for the JVM build of the plugin
+public class FrameLayout extends ViewGroup {
+    public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+        public int gravity = -1;
+
+        public LayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+        public LayoutParams(int width, int height, int gravity) {
+            super(width, height);
+            this.gravity = gravity;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ansca.corona;
+
+import android.app.Activity;
+import android.graphics.Point;
+import android.widget.FrameLayout;
+
+// stand-in for the JVM build of the plugin. Corona content coordinates map 1:1 to device pixels
+public class CoronaActivity extends Activity {
+    private final FrameLayout overlayView = new FrameLayout();
+
+    public Point convertCoronaPointToAndroidPoint(int x, int y) {
+        return new Point(x, y);
+    }
+
+    public FrameLayout getOverlayView() {
+        return overlayView;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ansca.corona;
+
+import android.content.Context;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// stand-in for the JVM build of the plugin
+public class CoronaEnvironment {
+    private static volatile CoronaActivity coronaActivity;
+    private static final List<CoronaRuntimeListener> runtimeListeners = new CopyOnWriteArrayList<>();
+
+    public static Context getApplicationContext() {
+        return coronaActivity;
+    }
+
+    public static CoronaActivity getCoronaActivity() {
+        return coronaActivity;
+    }
+
+    public static void addRuntimeListener(CoronaRuntimeListener listener) {
+        runtimeListeners.add(listener);
+    }
+
+    // stand-in only
+    public static void setCoronaActivity(CoronaActivity activity) {
+        coronaActivity = activity;
+    }
+
+    // stand-in only
+    public static void removeRuntimeListener(CoronaRuntimeListener listener) {
+        runtimeListeners.remove(listener);
+    }
+}
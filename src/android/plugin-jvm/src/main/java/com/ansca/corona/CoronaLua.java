@@ -0,0 +1,83 @@
+package com.ansca.corona;
+
+import com.naef.jnlua.LuaState;
+import com.naef.jnlua.LuaType;
+
+import java.util.Map;
+
+// stand-in for the JVM build of the plugin
+public class CoronaLua {
+    public static final int REFNIL = -1;
+    public static final int NOREF = -2;
+
+    public static boolean isListener(LuaState L, int index, String eventName) {
+        if (L.type(index) == LuaType.FUNCTION) {
+            return true;
+        }
+        if (L.type(index) != LuaType.TABLE) {
+            return false;
+        }
+
+        L.getField(index, eventName);
+        boolean isListener = (L.type(-1) == LuaType.FUNCTION);
+        L.pop(1);
+        return isListener;
+    }
+
+    public static int newRef(LuaState L, int index) {
+        L.pushValue(index);
+        return L.ref(LuaState.REGISTRYINDEX);
+    }
+
+    public static void deleteRef(LuaState L, int ref) {
+        L.unref(LuaState.REGISTRYINDEX, ref);
+    }
+
+    public static void newEvent(LuaState L, String eventName) {
+        L.newTable();
+        L.pushString(eventName);
+        L.setField(-2, CoronaLuaEvent.NAME_KEY);
+    }
+
+    public static void pushValue(LuaState L, Object value) {
+        if (value instanceof Boolean) {
+            L.pushBoolean((Boolean) value);
+        }
+        else if (value instanceof Number) {
+            L.pushNumber(((Number) value).doubleValue());
+        }
+        else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            L.newTable(0, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                pushValue(L, entry.getValue());
+                L.setField(-2, String.valueOf(entry.getKey()));
+            }
+        }
+        else if (value != null) {
+            L.pushString(value.toString());
+        }
+        else {
+            L.pushNil();
+        }
+    }
+
+    // calls the listener with the event on top of the stack, which is popped
+    public static void dispatchEvent(LuaState L, int listenerRef, int resultCount) throws Exception {
+        L.rawGet(LuaState.REGISTRYINDEX, listenerRef);
+        if (L.type(-1) == LuaType.TABLE) {
+            // table listener: listener[event.name](listener, event)
+            L.getField(-2, CoronaLuaEvent.NAME_KEY);
+            String eventName = L.toString(-1);
+            L.pop(1);
+            L.getField(-1, eventName);
+            L.insert(-3);
+            L.insert(-2);
+            L.call(2, resultCount);
+        }
+        else {
+            L.insert(-2);
+            L.call(1, resultCount);
+        }
+    }
+}
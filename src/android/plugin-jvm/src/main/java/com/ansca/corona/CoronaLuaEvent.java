@@ -0,0 +1,12 @@
+package com.ansca.corona;
+
+// stand-in for the JVM build of the plugin
+public class CoronaLuaEvent {
+    public static final String NAME_KEY = "name";
+    public static final String PROVIDER_KEY = "provider";
+    public static final String PHASE_KEY = "phase";
+    public static final String TYPE_KEY = "type";
+    public static final String RESPONSE_KEY = "response";
+    public static final String ISERROR_KEY = "isError";
+    public static final String DATA_KEY = "data";
+}
@@ -0,0 +1,60 @@
+package com.ansca.corona;
+
+import com.naef.jnlua.LuaState;
+
+import java.util.ArrayDeque;
+
+// stand-in for the JVM build of the plugin. tasks sent to the runtime wait until the Corona thread
+// (whichever thread calls runPendingTasks()) picks them up
+public class CoronaRuntime {
+    private final LuaState luaState;
+    private final ArrayDeque<CoronaRuntimeTask> pendingTasks = new ArrayDeque<>();
+    private volatile boolean running = true;
+
+    public CoronaRuntime(LuaState luaState) {
+        this.luaState = luaState;
+    }
+
+    public LuaState getLuaState() {
+        return luaState;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    void send(CoronaRuntimeTask task) {
+        synchronized (pendingTasks) {
+            pendingTasks.addLast(task);
+        }
+    }
+
+    // stand-in only: runs the pending tasks, including those they send. returns the number of tasks run
+    public int runPendingTasks() {
+        int count = 0;
+        CoronaRuntimeTask task;
+        while ((task = pollPendingTask()) != null) {
+            task.executeUsing(this);
+            count++;
+        }
+        return count;
+    }
+
+    // stand-in only
+    public int getPendingTaskCount() {
+        synchronized (pendingTasks) {
+            return pendingTasks.size();
+        }
+    }
+
+    // stand-in only
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    private CoronaRuntimeTask pollPendingTask() {
+        synchronized (pendingTasks) {
+            return pendingTasks.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.ansca.corona;
+
+// stand-in for the JVM build of the plugin
+public interface CoronaRuntimeTask {
+    void executeUsing(CoronaRuntime runtime);
+}
@@ -0,0 +1,24 @@
+package com.ansca.corona;
+
+// stand-in for the JVM build of the plugin
+public class CoronaRuntimeTaskDispatcher {
+    private final CoronaRuntime runtime;
+
+    public CoronaRuntimeTaskDispatcher(CoronaRuntime runtime) {
+        this.runtime = runtime;
+    }
+
+    public void send(CoronaRuntimeTask task) {
+        if (runtime.isRunning()) {
+            runtime.send(task);
+        }
+    }
+
+    public boolean isRuntimeAvailable() {
+        return runtime.isRunning();
+    }
+
+    public boolean isRuntimeUnavailable() {
+        return !runtime.isRunning();
+    }
+}
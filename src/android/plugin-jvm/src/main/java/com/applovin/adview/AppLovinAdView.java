@@ -0,0 +1,50 @@
+package com.applovin.adview;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import com.applovin.sdk.AppLovinAdClickListener;
+import com.applovin.sdk.AppLovinAdDisplayListener;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdSize;
+import com.applovin.sdk.AppLovinSdk;
+
+// stand-in for the JVM build of the plugin
+public class AppLovinAdView extends FrameLayout {
+    private final AppLovinAdSize adSize;
+    protected AppLovinAdLoadListener adLoadListener;
+    protected AppLovinAdDisplayListener adDisplayListener;
+    protected AppLovinAdClickListener adClickListener;
+
+    public AppLovinAdView(AppLovinSdk sdk, AppLovinAdSize adSize, Context context) {
+        this.adSize = adSize;
+    }
+
+    public AppLovinAdSize getSize() {
+        return adSize;
+    }
+
+    public void setAdLoadListener(AppLovinAdLoadListener listener) {
+        adLoadListener = listener;
+    }
+
+    public void setAdDisplayListener(AppLovinAdDisplayListener listener) {
+        adDisplayListener = listener;
+    }
+
+    public void setAdClickListener(AppLovinAdClickListener listener) {
+        adClickListener = listener;
+    }
+
+    public void loadNextAd() {
+    }
+
+    public void pause() {
+    }
+
+    public void resume() {
+    }
+
+    public void destroy() {
+    }
+}
@@ -0,0 +1,47 @@
+package com.applovin.adview;
+
+import android.content.Context;
+
+import com.applovin.sdk.AppLovinAdClickListener;
+import com.applovin.sdk.AppLovinAdDisplayListener;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdRewardListener;
+import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
+import com.applovin.sdk.AppLovinSdk;
+
+// stand-in for the JVM build of the plugin. nothing preloads or shows, the tests drive rewarded ads through the plugin's ad provider
+public class AppLovinIncentivizedInterstitial {
+    private String userIdentifier;
+
+    protected AppLovinIncentivizedInterstitial() {
+    }
+
+    public static AppLovinIncentivizedInterstitial create(AppLovinSdk sdk) {
+        return new AppLovinIncentivizedInterstitial();
+    }
+
+    public void setUserIdentifier(String userIdentifier) {
+        this.userIdentifier = userIdentifier;
+    }
+
+    public String getUserIdentifier() {
+        return userIdentifier;
+    }
+
+    public void preload(AppLovinAdLoadListener listener) {
+    }
+
+    public boolean isAdReadyToDisplay() {
+        return false;
+    }
+
+    public void show(Context context, String placement, AppLovinAdRewardListener rewardListener,
+                     AppLovinAdVideoPlaybackListener videoPlaybackListener, AppLovinAdDisplayListener displayListener,
+                     AppLovinAdClickListener clickListener) {
+    }
+
+    public void show(Context context, AppLovinAdRewardListener rewardListener,
+                     AppLovinAdVideoPlaybackListener videoPlaybackListener, AppLovinAdDisplayListener displayListener,
+                     AppLovinAdClickListener clickListener) {
+    }
+}
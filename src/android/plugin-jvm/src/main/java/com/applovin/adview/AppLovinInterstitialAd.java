@@ -0,0 +1,37 @@
+package com.applovin.adview;
+
+import android.content.Context;
+
+import com.applovin.sdk.AppLovinAd;
+import com.applovin.sdk.AppLovinAdClickListener;
+import com.applovin.sdk.AppLovinAdDisplayListener;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
+import com.applovin.sdk.AppLovinSdk;
+
+// stand-in for the JVM build of the plugin. the dialog never shows, the tests show ads through the plugin's ad provider
+public class AppLovinInterstitialAd {
+    public static AppLovinInterstitialAdDialog create(AppLovinSdk sdk, Context context) {
+        return new AppLovinInterstitialAdDialog() {
+            @Override
+            public void setAdLoadListener(AppLovinAdLoadListener listener) {
+            }
+
+            @Override
+            public void setAdDisplayListener(AppLovinAdDisplayListener listener) {
+            }
+
+            @Override
+            public void setAdVideoPlaybackListener(AppLovinAdVideoPlaybackListener listener) {
+            }
+
+            @Override
+            public void setAdClickListener(AppLovinAdClickListener listener) {
+            }
+
+            @Override
+            public void showAndRender(AppLovinAd ad) {
+            }
+        };
+    }
+}
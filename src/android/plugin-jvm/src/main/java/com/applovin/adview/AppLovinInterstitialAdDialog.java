@@ -0,0 +1,20 @@
+package com.applovin.adview;
+
+import com.applovin.sdk.AppLovinAd;
+import com.applovin.sdk.AppLovinAdClickListener;
+import com.applovin.sdk.AppLovinAdDisplayListener;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinInterstitialAdDialog {
+    void setAdLoadListener(AppLovinAdLoadListener listener);
+
+    void setAdDisplayListener(AppLovinAdDisplayListener listener);
+
+    void setAdVideoPlaybackListener(AppLovinAdVideoPlaybackListener listener);
+
+    void setAdClickListener(AppLovinAdClickListener listener);
+
+    void showAndRender(AppLovinAd ad);
+}
@@ -0,0 +1,12 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinAd {
+    AppLovinAdSize getSize();
+
+    long getAdIdNumber();
+
+    String getZoneId();
+
+    boolean isVideoAd();
+}
@@ -0,0 +1,6 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinAdClickListener {
+    void adClicked(AppLovinAd ad);
+}
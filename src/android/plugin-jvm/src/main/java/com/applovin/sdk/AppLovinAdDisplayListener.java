@@ -0,0 +1,8 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinAdDisplayListener {
+    void adDisplayed(AppLovinAd ad);
+
+    void adHidden(AppLovinAd ad);
+}
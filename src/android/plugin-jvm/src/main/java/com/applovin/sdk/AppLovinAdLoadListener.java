@@ -0,0 +1,8 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinAdLoadListener {
+    void adReceived(AppLovinAd ad);
+
+    void failedToReceiveAd(int errorCode);
+}
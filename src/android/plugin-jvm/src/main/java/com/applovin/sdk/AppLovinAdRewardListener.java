@@ -0,0 +1,16 @@
+package com.applovin.sdk;
+
+import java.util.Map;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinAdRewardListener {
+    void userRewardVerified(AppLovinAd ad, Map<String, String> response);
+
+    void userOverQuota(AppLovinAd ad, Map<String, String> response);
+
+    void userRewardRejected(AppLovinAd ad, Map<String, String> response);
+
+    void validationRequestFailed(AppLovinAd ad, int responseCode);
+
+    void userDeclinedToViewAd(AppLovinAd ad);
+}
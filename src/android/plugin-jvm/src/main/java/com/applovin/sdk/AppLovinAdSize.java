@@ -0,0 +1,19 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public class AppLovinAdSize {
+    public static final AppLovinAdSize BANNER = new AppLovinAdSize("BANNER");
+    public static final AppLovinAdSize LEADER = new AppLovinAdSize("LEADER");
+    public static final AppLovinAdSize MREC = new AppLovinAdSize("MREC");
+    public static final AppLovinAdSize INTERSTITIAL = new AppLovinAdSize("INTER");
+
+    private final String label;
+
+    private AppLovinAdSize(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,8 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinAdVideoPlaybackListener {
+    void videoPlaybackBegan(AppLovinAd ad);
+
+    void videoPlaybackEnded(AppLovinAd ad, double percentViewed, boolean fullyWatched);
+}
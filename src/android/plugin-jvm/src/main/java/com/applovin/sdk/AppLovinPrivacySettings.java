@@ -0,0 +1,25 @@
+package com.applovin.sdk;
+
+import android.content.Context;
+
+// stand-in for the JVM build of the plugin
+public class AppLovinPrivacySettings {
+    private static volatile boolean hasUserConsent;
+    private static volatile boolean isAgeRestrictedUser;
+
+    public static void setHasUserConsent(boolean hasUserConsent, Context context) {
+        AppLovinPrivacySettings.hasUserConsent = hasUserConsent;
+    }
+
+    public static boolean hasUserConsent(Context context) {
+        return hasUserConsent;
+    }
+
+    public static void setIsAgeRestrictedUser(boolean isAgeRestrictedUser, Context context) {
+        AppLovinPrivacySettings.isAgeRestrictedUser = isAgeRestrictedUser;
+    }
+
+    public static boolean isAgeRestrictedUser(Context context) {
+        return isAgeRestrictedUser;
+    }
+}
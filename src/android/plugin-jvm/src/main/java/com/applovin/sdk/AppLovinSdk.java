@@ -0,0 +1,81 @@
+package com.applovin.sdk;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// stand-in for the JVM build of the plugin. ads never load, the tests provide them through the plugin's ad provider
+public class AppLovinSdk {
+    public static final String VERSION = "10.3.1";
+
+    private static final Map<String, AppLovinSdk> instances = new HashMap<>();
+
+    private final AppLovinSdkSettings settings;
+    private volatile boolean initialized;
+    private volatile int mediationDebuggerShowCount;
+
+    private final AppLovinAdService adService = new AppLovinAdService() {
+        @Override
+        public void loadNextAd(AppLovinAdSize adSize, AppLovinAdLoadListener callback) {
+        }
+    };
+
+    private AppLovinSdk(AppLovinSdkSettings settings) {
+        this.settings = settings;
+    }
+
+    public static AppLovinSdk getInstance(String sdkKey, AppLovinSdkSettings settings, Context context) {
+        synchronized (instances) {
+            AppLovinSdk sdk = instances.get(sdkKey);
+            if (sdk == null) {
+                sdk = new AppLovinSdk(settings);
+                instances.put(sdkKey, sdk);
+            }
+            return sdk;
+        }
+    }
+
+    public static AppLovinSdk getInstance(Context context) {
+        return getInstance("", new AppLovinSdkSettings(context), context);
+    }
+
+    public void initializeSdk(final SdkInitializationListener listener) {
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                initialized = true;
+                if (listener != null) {
+                    listener.onSdkInitialized(null);
+                }
+            }
+        });
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public AppLovinSdkSettings getSettings() {
+        return settings;
+    }
+
+    public AppLovinAdService getAdService() {
+        return adService;
+    }
+
+    public void showMediationDebugger() {
+        mediationDebuggerShowCount++;
+    }
+
+    // stand-in only
+    public int getMediationDebuggerShowCount() {
+        return mediationDebuggerShowCount;
+    }
+
+    public interface SdkInitializationListener {
+        void onSdkInitialized(AppLovinSdkConfiguration config);
+    }
+}
@@ -0,0 +1,5 @@
+package com.applovin.sdk;
+
+// stand-in for the JVM build of the plugin
+public interface AppLovinSdkConfiguration {
+}
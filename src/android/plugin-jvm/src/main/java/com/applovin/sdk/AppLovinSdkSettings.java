@@ -0,0 +1,28 @@
+package com.applovin.sdk;
+
+import android.content.Context;
+
+// stand-in for the JVM build of the plugin
+public class AppLovinSdkSettings {
+    private boolean verboseLogging;
+    private boolean muted;
+
+    public AppLovinSdkSettings(Context context) {
+    }
+
+    public void setVerboseLogging(boolean isVerboseLoggingEnabled) {
+        verboseLogging = isVerboseLoggingEnabled;
+    }
+
+    public boolean isVerboseLoggingEnabled() {
+        return verboseLogging;
+    }
+
+    public void setMuted(boolean isMuted) {
+        muted = isMuted;
+    }
+
+    public boolean isMuted() {
+        return muted;
+    }
+}
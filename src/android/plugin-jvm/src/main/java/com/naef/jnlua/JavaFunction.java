@@ -0,0 +1,6 @@
+package com.naef.jnlua;
+
+// stand-in for the JVM build of the plugin
+public interface JavaFunction {
+    int invoke(LuaState L);
+}
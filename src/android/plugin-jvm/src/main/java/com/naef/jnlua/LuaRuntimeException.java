@@ -0,0 +1,8 @@
+package com.naef.jnlua;
+
+// stand-in for the JVM build of the plugin
+public class LuaRuntimeException extends RuntimeException {
+    public LuaRuntimeException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,360 @@
+package com.naef.jnlua;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// stand-in for the JVM build of the plugin: the Lua stack modelled in Java instead of the native Lua VM.
+// nil is null, booleans are Boolean, numbers are Double, strings are String, tables are LuaTable and
+// functions are JavaFunction
+public class LuaState {
+    public static final int REGISTRYINDEX = -10000;
+    public static final int GLOBALSINDEX = -10002;
+
+    private final List<Object> stack = new ArrayList<>();
+    private final LuaTable registry = new LuaTable();
+    private final LuaTable globals = new LuaTable();
+
+    // stack index of the first argument of the running function
+    private int base;
+
+    // the next free reference, references that were released are reused first like luaL_ref does
+    private int nextRef = 1;
+    private final List<Integer> freeRefs = new ArrayList<>();
+
+    // -- stack
+
+    public int getTop() {
+        return stack.size() - base;
+    }
+
+    public void setTop(int index) {
+        int size = (index >= 0) ? base + index : stack.size() + index + 1;
+        if (size < base) {
+            throw new IllegalArgumentException("Invalid top " + index);
+        }
+        while (stack.size() > size) {
+            stack.remove(stack.size() - 1);
+        }
+        while (stack.size() < size) {
+            stack.add(null);
+        }
+    }
+
+    public void pop(int count) {
+        setTop(-count - 1);
+    }
+
+    public void pushValue(int index) {
+        push(get(index));
+    }
+
+    public void insert(int index) {
+        int absIndex = absIndex(index);
+        stack.add(absIndex, stack.remove(stack.size() - 1));
+    }
+
+    public void remove(int index) {
+        stack.remove(absIndex(index));
+    }
+
+    // -- push
+
+    public void pushNil() {
+        push(null);
+    }
+
+    public void pushBoolean(boolean b) {
+        push(b);
+    }
+
+    public void pushNumber(double n) {
+        push(n);
+    }
+
+    public void pushInteger(int n) {
+        push((double) n);
+    }
+
+    public void pushString(String s) {
+        push(s);
+    }
+
+    public void pushJavaFunction(JavaFunction function) {
+        push(function);
+    }
+
+    public void newTable() {
+        push(new LuaTable());
+    }
+
+    public void newTable(int arrayCount, int recordCount) {
+        push(new LuaTable());
+    }
+
+    // stand-in only: push any value as the stand-in represents it
+    public void pushJavaObject(Object value) {
+        push(value);
+    }
+
+    // -- type
+
+    public LuaType type(int index) {
+        if (!isValidIndex(index)) {
+            return null;
+        }
+        Object value = get(index);
+        if (value == null) {
+            return LuaType.NIL;
+        }
+        if (value instanceof Boolean) {
+            return LuaType.BOOLEAN;
+        }
+        if (value instanceof Double) {
+            return LuaType.NUMBER;
+        }
+        if (value instanceof String) {
+            return LuaType.STRING;
+        }
+        if (value instanceof LuaTable) {
+            return LuaType.TABLE;
+        }
+        if (value instanceof JavaFunction) {
+            return LuaType.FUNCTION;
+        }
+        return LuaType.USERDATA;
+    }
+
+    public String typeName(int index) {
+        LuaType type = type(index);
+        return (type != null) ? type.displayText() : "no value";
+    }
+
+    public boolean isNoneOrNil(int index) {
+        LuaType type = type(index);
+        return (type == null) || (type == LuaType.NIL);
+    }
+
+    // -- convert
+
+    public boolean toBoolean(int index) {
+        Object value = isValidIndex(index) ? get(index) : null;
+        return (value != null) && !Boolean.FALSE.equals(value);
+    }
+
+    public double toNumber(int index) {
+        Object value = isValidIndex(index) ? get(index) : null;
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble(((String) value).trim());
+            }
+            catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    public int toInteger(int index) {
+        return (int) toNumber(index);
+    }
+
+    public String toString(int index) {
+        Object value = isValidIndex(index) ? get(index) : null;
+        if (value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof Double) {
+            double n = (Double) value;
+            return ((n == Math.rint(n)) && !Double.isInfinite(n)) ? String.valueOf((long) n) : String.valueOf(n);
+        }
+        return null;
+    }
+
+    // stand-in only: the value at an index as the stand-in represents it
+    public Object toJavaObject(int index) {
+        return isValidIndex(index) ? get(index) : null;
+    }
+
+    // -- table
+
+    public void setField(int index, String key) {
+        LuaTable table = checkTable(index);
+        put(table, key, pop());
+    }
+
+    public void getField(int index, String key) {
+        push(checkTable(index).get(key));
+    }
+
+    public void rawSet(int index) {
+        LuaTable table = checkTable(index);
+        Object value = pop();
+        Object key = pop();
+        put(table, key, value);
+    }
+
+    public void rawSet(int index, int key) {
+        LuaTable table = checkTable(index);
+        put(table, (double) key, pop());
+    }
+
+    public void rawGet(int index) {
+        LuaTable table = checkTable(index);
+        push(table.get(pop()));
+    }
+
+    public void rawGet(int index, int key) {
+        push(checkTable(index).get(key));
+    }
+
+    public boolean next(int index) {
+        LuaTable table = checkTable(index);
+        Object key = pop();
+
+        Iterator<Map.Entry<Object, Object>> entries = table.entrySet().iterator();
+        if (key != null) {
+            while (entries.hasNext() && !entries.next().getKey().equals(key)) {
+                // skip to the previous key
+            }
+        }
+        if (!entries.hasNext()) {
+            return false;
+        }
+
+        Map.Entry<Object, Object> entry = entries.next();
+        push(entry.getKey());
+        push(entry.getValue());
+        return true;
+    }
+
+    // -- functions
+
+    public void call(int argCount, int returnCount) {
+        int functionIndex = stack.size() - argCount - 1;
+        Object function = stack.get(functionIndex);
+        if (!(function instanceof JavaFunction)) {
+            throw new LuaRuntimeException("attempt to call a " + typeName(-argCount - 1) + " value");
+        }
+        stack.remove(functionIndex);
+
+        int callerBase = base;
+        base = functionIndex;
+        int resultCount;
+        try {
+            resultCount = ((JavaFunction) function).invoke(this);
+        }
+        finally {
+            base = callerBase;
+        }
+
+        // move the results down to where the function was and adjust them to the expected count
+        List<Object> results = new ArrayList<>(stack.subList(stack.size() - resultCount, stack.size()));
+        while (stack.size() > functionIndex) {
+            stack.remove(stack.size() - 1);
+        }
+        int count = (returnCount < 0) ? resultCount : returnCount;
+        for (int i = 0; i < count; i++) {
+            push((i < results.size()) ? results.get(i) : null);
+        }
+    }
+
+    public void register(String moduleName, NamedJavaFunction[] namedJavaFunctions) {
+        LuaTable module = new LuaTable();
+        for (NamedJavaFunction function : namedJavaFunctions) {
+            module.put(function.getName(), function);
+        }
+        globals.put(moduleName, module);
+        push(module);
+    }
+
+    public void getGlobal(String name) {
+        push(globals.get(name));
+    }
+
+    // -- references
+
+    public int ref(int index) {
+        LuaTable table = checkTable(index);
+        Object value = pop();
+        if (value == null) {
+            return -1;
+        }
+        int ref = freeRefs.isEmpty() ? nextRef++ : freeRefs.remove(freeRefs.size() - 1);
+        table.put((double) ref, value);
+        return ref;
+    }
+
+    public void unref(int index, int reference) {
+        if ((reference > 0) && (checkTable(index).remove((double) reference) != null)) {
+            freeRefs.add(reference);
+        }
+    }
+
+    // stand-in only: number of values held in the registry
+    public int getRegistrySize() {
+        return registry.size();
+    }
+
+    // -- helpers
+
+    private void push(Object value) {
+        stack.add(value);
+    }
+
+    private Object pop() {
+        if (stack.size() <= base) {
+            throw new IllegalStateException("Stack underflow");
+        }
+        return stack.remove(stack.size() - 1);
+    }
+
+    private boolean isValidIndex(int index) {
+        if ((index == REGISTRYINDEX) || (index == GLOBALSINDEX)) {
+            return true;
+        }
+        int absIndex = (index > 0) ? base + index - 1 : stack.size() + index;
+        return (index != 0) && (absIndex >= base) && (absIndex < stack.size());
+    }
+
+    private int absIndex(int index) {
+        if (!isValidIndex(index) || (index == REGISTRYINDEX) || (index == GLOBALSINDEX)) {
+            throw new IllegalArgumentException("Invalid stack index " + index);
+        }
+        return (index > 0) ? base + index - 1 : stack.size() + index;
+    }
+
+    private Object get(int index) {
+        if (index == REGISTRYINDEX) {
+            return registry;
+        }
+        if (index == GLOBALSINDEX) {
+            return globals;
+        }
+        return stack.get(absIndex(index));
+    }
+
+    private LuaTable checkTable(int index) {
+        Object value = get(index);
+        if (!(value instanceof LuaTable)) {
+            throw new LuaRuntimeException("table expected, got " + typeName(index));
+        }
+        return (LuaTable) value;
+    }
+
+    private static void put(LuaTable table, Object key, Object value) {
+        if (key == null) {
+            throw new LuaRuntimeException("table index is nil");
+        }
+        if (value == null) {
+            table.remove(key);
+        }
+        else {
+            table.put(key, value);
+        }
+    }
+}
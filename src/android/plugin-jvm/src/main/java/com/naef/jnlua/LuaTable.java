@@ -0,0 +1,24 @@
+package com.naef.jnlua;
+
+import java.util.LinkedHashMap;
+
+// stand-in only: a Lua table as the stand-in LuaState keeps it. numeric keys are stored as Double,
+// like every other number on the stack
+public class LuaTable extends LinkedHashMap<Object, Object> {
+    public Object get(String key) {
+        return super.get(key);
+    }
+
+    public Object get(int index) {
+        return super.get((double) index);
+    }
+
+    // number of array entries, as the Lua length operator would count them
+    public int length() {
+        int n = 0;
+        while (containsKey((double) (n + 1))) {
+            n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,24 @@
+package com.naef.jnlua;
+
+// stand-in for the JVM build of the plugin
+public enum LuaType {
+    NIL("nil"),
+    BOOLEAN("boolean"),
+    LIGHTUSERDATA("userdata"),
+    NUMBER("number"),
+    STRING("string"),
+    TABLE("table"),
+    FUNCTION("function"),
+    USERDATA("userdata"),
+    THREAD("thread");
+
+    private final String displayText;
+
+    LuaType(String displayText) {
+        this.displayText = displayText;
+    }
+
+    public String displayText() {
+        return displayText;
+    }
+}
@@ -0,0 +1,274 @@
+package plugin.applovin;
+
+import android.content.ComponentCallbacks2;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.applovin.sdk.AppLovinAdSize;
+import com.applovin.sdk.AppLovinErrorCodes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import static plugin.applovin.StandInAdProvider.BANNER;
+
+public class BannerTest {
+    private PluginHarness harness;
+    private StandInAdProvider provider;
+    private FrameLayout overlay;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+        provider = harness.provider;
+        overlay = harness.activity.getOverlayView();
+        harness.init(harness.table("sdkKey", "key"));
+        harness.clearEvents();
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    private StandInBannerView loadBanner(Object... options) {
+        harness.call("load", "banner", harness.table(options));
+        harness.idle();
+        provider.fill(BANNER);
+        harness.idle();
+
+        List<StandInBannerView> bannerViews = provider.getBannerViews();
+        return bannerViews.get(bannerViews.size() - 1);
+    }
+
+    @Test
+    public void loadShowAndHide() {
+        StandInBannerView bannerView = loadBanner();
+        assertSame(AppLovinAdSize.BANNER, bannerView.getSize());
+        assertEquals(true, harness.call("isLoaded", "banner"));
+        assertNull(bannerView.getParent());
+
+        harness.call("show", "banner", harness.table("y", "top"));
+        harness.idle();
+        assertSame(overlay, bannerView.getParent());
+        assertEquals(View.VISIBLE, bannerView.getVisibility());
+        assertEquals(Gravity.TOP | Gravity.CENTER, ((FrameLayout.LayoutParams) bannerView.getLayoutParams()).gravity);
+        assertEquals(true, harness.call("isLoaded", "banner"));
+
+        harness.call("hide", "banner");
+        harness.idle();
+        assertEquals(View.GONE, bannerView.getVisibility());
+        assertTrue(bannerView.isPaused());
+        assertFalse(bannerView.isDestroyed());
+        assertEquals(false, harness.call("isLoaded", "banner"));
+        assertEquals(Arrays.asList("banner:loaded", "banner:displayed", "banner:hidden"), harness.getEventPhases());
+    }
+
+    @Test
+    public void bannerViewsAreReusedPerSize() {
+        StandInBannerView standardView = loadBanner();
+        harness.call("show", "banner");
+        harness.idle();
+        harness.call("hide", "banner");
+        harness.idle();
+
+        StandInBannerView mrecView = loadBanner("bannerSize", "mrec");
+        assertNotSame(standardView, mrecView);
+        assertSame(AppLovinAdSize.MREC, mrecView.getSize());
+
+        // the reused view doesn't refresh until it's shown
+        loadBanner("bannerSize", "standard");
+        assertEquals(2, provider.getBannerViews().size());
+        assertTrue(standardView.isPaused());
+
+        harness.call("show", "banner");
+        harness.idle();
+        assertFalse(standardView.isPaused());
+    }
+
+    @Test
+    public void numericYIsAnOffsetFromTheTopOrBottom() {
+        StandInBannerView bannerView = loadBanner();
+        harness.call("show", "banner", harness.table("y", 100));
+        harness.idle();
+        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) bannerView.getLayoutParams();
+        assertEquals(Gravity.TOP | Gravity.CENTER, params.gravity);
+        assertEquals(100, params.topMargin);
+
+        harness.call("hide", "banner");
+        harness.idle();
+        loadBanner();
+        harness.call("show", "banner", harness.table("y", -50));
+        harness.idle();
+        params = (FrameLayout.LayoutParams) bannerView.getLayoutParams();
+        assertEquals(Gravity.BOTTOM | Gravity.CENTER, params.gravity);
+        assertEquals(0, params.topMargin);
+        assertEquals(50, params.bottomMargin);
+
+        // a banner below the screen is moved up
+        harness.call("hide", "banner");
+        harness.idle();
+        loadBanner();
+        harness.call("show", "banner", harness.table("y", 5000));
+        harness.idle();
+        assertEquals(Gravity.BOTTOM | Gravity.CENTER, ((FrameLayout.LayoutParams) bannerView.getLayoutParams()).gravity);
+        assertEquals(1, harness.getLogMessages("Banner y position off screen").size());
+    }
+
+    @Test
+    public void invalidShowAndHide() {
+        harness.call("hide", "banner");
+        harness.call("hide", "interstitial");
+        harness.call("show", "banner", harness.table("y", "middle"));
+        harness.call("show", "banner");
+        harness.idle();
+
+        assertEquals(2, harness.getLogMessages("Banner not loaded").size());
+        assertEquals(1, harness.getLogMessages("Only banners han be hidden").size());
+        assertEquals(1, harness.getLogMessages("y 'middle' invalid").size());
+    }
+
+    // the replacement banner loads off-screen and takes the place and layout of the visible one
+    @Test
+    public void doubleBufferedLoadSwapsTheBanners() {
+        StandInBannerView oldView = loadBanner();
+        harness.call("show", "banner", harness.table("y", 100));
+        harness.idle();
+        FrameLayout.LayoutParams oldParams = (FrameLayout.LayoutParams) oldView.getLayoutParams();
+        harness.clearEvents();
+
+        harness.call("load", "banner", harness.table("doubleBuffer", true));
+        harness.idle();
+        StandInBannerView newView = provider.getBannerViews().get(1);
+        assertEquals(View.VISIBLE, oldView.getVisibility());
+        assertNull(newView.getParent());
+
+        provider.fill(BANNER);
+        harness.idle();
+        assertSame(overlay, newView.getParent());
+        assertEquals(View.VISIBLE, newView.getVisibility());
+        assertEquals(View.GONE, oldView.getVisibility());
+        assertSame(newView, overlay.getChildAt(overlay.getChildCount() - 1));
+
+        FrameLayout.LayoutParams newParams = (FrameLayout.LayoutParams) newView.getLayoutParams();
+        assertNotSame(oldParams, newParams);
+        assertEquals(oldParams.gravity, newParams.gravity);
+        assertEquals(oldParams.width, newParams.width);
+        assertEquals(oldParams.height, newParams.height);
+        assertEquals(100, newParams.topMargin);
+        assertEquals(Arrays.asList("banner:loaded"), harness.getEventPhases());
+        assertEquals(true, harness.call("isLoaded", "banner"));
+    }
+
+    @Test
+    public void failedDoubleBufferedLoadKeepsTheVisibleBanner() {
+        StandInBannerView oldView = loadBanner();
+        harness.call("show", "banner");
+        harness.idle();
+
+        harness.call("load", "banner", harness.table("doubleBuffer", true));
+        harness.idle();
+        provider.fail(BANNER, AppLovinErrorCodes.NO_FILL);
+        harness.idle();
+
+        assertEquals(View.VISIBLE, oldView.getVisibility());
+        StandInBannerView newView = provider.getBannerViews().get(1);
+        assertEquals(View.GONE, newView.getVisibility());
+        assertEquals("failed", harness.getLastEvent().get("phase"));
+    }
+
+    @Test
+    public void suspendPausesAndResumeResumesTheBanner() {
+        StandInBannerView bannerView = loadBanner();
+        harness.call("show", "banner");
+        harness.idle();
+
+        harness.suspend();
+        assertTrue(bannerView.isPaused());
+        harness.resume();
+        assertFalse(bannerView.isPaused());
+    }
+
+    @Test
+    public void resumeKeepsTheHiddenBannerPaused() {
+        StandInBannerView bannerView = loadBanner();
+        harness.call("show", "banner");
+        harness.idle();
+        harness.call("hide", "banner");
+        harness.idle();
+        loadBanner();
+
+        harness.suspend();
+        harness.resume();
+        assertEquals(View.GONE, bannerView.getVisibility());
+        assertTrue(bannerView.isPaused());
+    }
+
+    @Test
+    public void loadsWhileSuspendedStartOnResume() {
+        harness.suspend();
+        harness.call("load", "banner");
+        harness.idle();
+        assertEquals(0, provider.getPendingLoadCount(BANNER));
+
+        harness.resume();
+        assertEquals(1, provider.getPendingLoadCount(BANNER));
+    }
+
+    // a loaded banner that isn't shown is released at moderate memory pressure and loaded again later
+    @Test
+    public void moderateMemoryPressureReleasesTheHiddenBanner() {
+        StandInBannerView hiddenView = loadBanner();
+        assertEquals(true, harness.call("isLoaded", "banner"));
+
+        trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertTrue(hiddenView.isDestroyed());
+        assertEquals(false, harness.call("isLoaded", "banner"));
+        assertEquals(0, provider.getPendingLoadCount(BANNER));
+
+        harness.advance(30000);
+        assertEquals(1, provider.getPendingLoadCount(BANNER));
+    }
+
+    @Test
+    public void moderateMemoryPressureKeepsTheVisibleBanner() {
+        StandInBannerView shownView = loadBanner();
+        harness.call("show", "banner");
+        harness.idle();
+
+        trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+        assertFalse(shownView.isDestroyed());
+        assertEquals(true, harness.call("isLoaded", "banner"));
+    }
+
+    @Test
+    public void exitDestroysTheBannerViews() {
+        StandInBannerView shownView = loadBanner();
+        harness.call("show", "banner");
+        harness.idle();
+        StandInBannerView mrecView = loadBanner("bannerSize", "mrec");
+
+        harness.close();
+        assertTrue(shownView.isDestroyed());
+        assertTrue(mrecView.isDestroyed());
+        assertEquals(0, overlay.getChildCount());
+    }
+
+    private void trimMemory(int level) {
+        assertEquals(1, harness.activity.getComponentCallbacks().size());
+        ((ComponentCallbacks2) harness.activity.getComponentCallbacks().get(0)).onTrimMemory(level);
+        harness.idle();
+    }
+}
@@ -0,0 +1,194 @@
+package plugin.applovin;
+
+import com.applovin.sdk.AppLovinErrorCodes;
+import com.naef.jnlua.LuaTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import static plugin.applovin.StandInAdProvider.BANNER;
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+import static plugin.applovin.StandInAdProvider.REWARDED;
+
+// every SDK callback the plugin listens to, and the Lua event it turns into
+public class DelegateCallbackTest {
+    private PluginHarness harness;
+    private StandInAdProvider provider;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+        provider = harness.provider;
+        harness.init(harness.table("sdkKey", "key"));
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    private StandInAdProvider.Show show(String adType) {
+        harness.call("load", adType, harness.table("poolSize", 1));
+        harness.idle();
+        provider.fill(adType);
+        harness.idle();
+        harness.call("show", adType);
+        harness.idle();
+        harness.clearEvents();
+        return provider.getLastShow();
+    }
+
+    private LuaTable lastEvent(String adType, String phase) {
+        harness.idle();
+        LuaTable event = harness.getLastEvent();
+        assertEquals(adType, event.get("type"));
+        assertEquals(phase, event.get("phase"));
+        assertEquals("adsRequest", event.get("name"));
+        assertEquals("applovin", event.get("provider"));
+        return event;
+    }
+
+    @Test
+    public void adReceived() {
+        harness.call("load", "interstitial", harness.table("poolSize", 1));
+        harness.idle();
+        provider.fill(INTERSTITIAL);
+        LuaTable event = lastEvent(INTERSTITIAL, "loaded");
+        assertEquals(false, event.get("isError"));
+    }
+
+    @Test
+    public void failedToReceiveAd() {
+        harness.call("load", "rewardedVideo", harness.table("poolSize", 1));
+        harness.idle();
+        provider.fail(REWARDED, AppLovinErrorCodes.NO_NETWORK);
+        LuaTable event = lastEvent(REWARDED, "failed");
+        assertEquals(true, event.get("isError"));
+        assertEquals("No internet connection (Error code -103)", event.get("response"));
+        assertEquals(-103.0, event.get("errorCode"));
+        assertEquals(0.0, event.get("retryAttempt"));
+    }
+
+    @Test
+    public void adDisplayedIsReportedByShow() {
+        StandInAdProvider.Show show = show(INTERSTITIAL);
+        show.displayListener.adDisplayed(show.ad);
+        harness.idle();
+        assertEquals(Collections.<String>emptyList(), harness.getEventPhases());
+    }
+
+    @Test
+    public void adHidden() {
+        StandInAdProvider.Show show = show(INTERSTITIAL);
+        show.displayListener.adHidden(show.ad);
+        lastEvent(INTERSTITIAL, "hidden");
+    }
+
+    @Test
+    public void adClicked() {
+        StandInAdProvider.Show show = show(INTERSTITIAL);
+        show.clickListener.adClicked(show.ad);
+        LuaTable event = lastEvent(INTERSTITIAL, "clicked");
+        assertNull(event.get("data"));
+    }
+
+    @Test
+    public void videoPlaybackBegan() {
+        StandInAdProvider.Show show = show(REWARDED);
+        show.playbackListener.videoPlaybackBegan(null);
+        lastEvent(REWARDED, "playbackBegan");
+    }
+
+    @Test
+    public void videoPlaybackEnded() {
+        StandInAdProvider.Show show = show(REWARDED);
+        show.playbackListener.videoPlaybackEnded(null, 42.5, false);
+        LuaTable data = (LuaTable) lastEvent(REWARDED, "playbackEnded").get("data");
+        assertEquals(42.5, data.get("percentPlayed"));
+        assertEquals(false, data.get("fullyWatched"));
+    }
+
+    @Test
+    public void userRewardVerified() {
+        StandInAdProvider.Show show = show(REWARDED);
+        Map<String, String> response = new HashMap<>();
+        response.put("currency", "coins");
+        response.put("amount", "10");
+        show.rewardListener.userRewardVerified(null, response);
+        LuaTable event = lastEvent(REWARDED, "validationSucceeded");
+        assertEquals(false, event.get("isError"));
+        LuaTable data = (LuaTable) event.get("data");
+        assertEquals("coins", data.get("currency"));
+        assertEquals("10", data.get("amount"));
+    }
+
+    @Test
+    public void userOverQuota() {
+        StandInAdProvider.Show show = show(REWARDED);
+        show.rewardListener.userOverQuota(null, Collections.singletonMap("result", "quota_exceeded"));
+        LuaTable event = lastEvent(REWARDED, "validationExceededQuota");
+        assertEquals(true, event.get("isError"));
+        assertEquals("quota_exceeded", ((LuaTable) event.get("data")).get("result"));
+    }
+
+    @Test
+    public void userRewardRejected() {
+        StandInAdProvider.Show show = show(REWARDED);
+        show.rewardListener.userRewardRejected(null, Collections.<String, String>emptyMap());
+        LuaTable event = lastEvent(REWARDED, "validationRejected");
+        assertEquals(true, event.get("isError"));
+        assertTrue(((LuaTable) event.get("data")).isEmpty());
+    }
+
+    @Test
+    public void validationRequestFailed() {
+        StandInAdProvider.Show show = show(REWARDED);
+        show.rewardListener.validationRequestFailed(null, AppLovinErrorCodes.INCENTIVIZED_SERVER_TIMEOUT);
+        LuaTable event = lastEvent(REWARDED, "validationFailed");
+        assertEquals(true, event.get("isError"));
+        assertEquals("Validation request timed out (Error code -500)", event.get("data"));
+    }
+
+    @Test
+    public void userDeclinedToViewAd() {
+        StandInAdProvider.Show show = show(REWARDED);
+        show.rewardListener.userDeclinedToViewAd(null);
+        lastEvent(REWARDED, "declinedToView");
+    }
+
+    @Test
+    public void bannerCallbacks() {
+        harness.call("load", "banner");
+        harness.idle();
+        provider.fill(BANNER);
+        harness.call("show", "banner");
+        harness.idle();
+        harness.clearEvents();
+
+        StandInBannerView bannerView = provider.getBannerViews().get(0);
+        bannerView.getAdClickListener().adClicked(null);
+        lastEvent(BANNER, "clicked");
+
+        // the plugin reports hidden banners itself
+        bannerView.getAdDisplayListener().adHidden(null);
+        bannerView.getAdDisplayListener().adDisplayed(null);
+        harness.idle();
+        assertEquals(Arrays.asList("banner:clicked"), harness.getEventPhases());
+
+        // a refresh of the visible banner
+        bannerView.getAdLoadListener().adReceived(new StandInAd(bannerView.getSize()));
+        lastEvent(BANNER, "loaded");
+        bannerView.getAdLoadListener().failedToReceiveAd(AppLovinErrorCodes.UNSPECIFIED_ERROR);
+        assertEquals("Unspecified network issue (Error code -1)", lastEvent(BANNER, "failed").get("response"));
+    }
+}
@@ -0,0 +1,104 @@
+package plugin.applovin;
+
+import com.naef.jnlua.LuaTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+
+public class EventJournalTest {
+    private PluginHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+        harness.init(harness.table("sdkKey", "key", "eventJournalSize", 4));
+
+        // init, then 3 x loaded / displayed / hidden
+        for (int i = 0; i < 3; i++) {
+            harness.call("load", "interstitial", harness.table("poolSize", 1));
+            harness.idle();
+            harness.provider.fill(INTERSTITIAL);
+            harness.idle();
+            harness.call("show", "interstitial", harness.table("placement", "level" + i));
+            harness.idle();
+            harness.provider.getLastShow().displayListener.adHidden(null);
+            harness.idle();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void readsAllRecords() {
+        LuaTable records = (LuaTable) harness.call("readEventJournal");
+        assertEquals(10, records.length());
+
+        LuaTable init = (LuaTable) records.get(1);
+        assertEquals("init", init.get("phase"));
+        assertNull(init.get("type"));
+
+        LuaTable loaded = (LuaTable) records.get(2);
+        assertEquals("interstitial", loaded.get("type"));
+        assertEquals("loaded", loaded.get("phase"));
+        assertNull(loaded.get("placement"));
+
+        LuaTable displayed = (LuaTable) records.get(3);
+        assertEquals("displayed", displayed.get("phase"));
+        assertEquals("level0", displayed.get("placement"));
+    }
+
+    @Test
+    public void pagesWithOffsetAndLimit() {
+        LuaTable page = (LuaTable) harness.call("readEventJournal", harness.table("offset", 4, "limit", 3));
+        assertEquals(3, page.length());
+        assertEquals("loaded", ((LuaTable) page.get(1)).get("phase"));
+        assertEquals("level1", ((LuaTable) page.get(2)).get("placement"));
+        assertEquals("hidden", ((LuaTable) page.get(3)).get("phase"));
+
+        LuaTable last = (LuaTable) harness.call("readEventJournal", harness.table("offset", 9, "limit", 3));
+        assertEquals(1, last.length());
+
+        LuaTable none = (LuaTable) harness.call("readEventJournal", harness.table("offset", 20));
+        assertEquals(0, none.length());
+        LuaTable empty = (LuaTable) harness.call("readEventJournal", harness.table("limit", 0));
+        assertEquals(0, empty.length());
+    }
+
+    // 10 characters of 3 bytes don't fit in a placement record, the name is cut after the 9th
+    @Test
+    public void longPlacementNamesAreCutBetweenCharacters() {
+        harness.call("load", "interstitial", harness.table("poolSize", 1));
+        harness.idle();
+        harness.provider.fill(INTERSTITIAL);
+        harness.idle();
+        harness.call("show", "interstitial", harness.table("placement", "\u5173\u5361\u5173\u5361\u5173\u5361\u5173\u5361\u5173\u5361"));
+        harness.idle();
+
+        LuaTable records = (LuaTable) harness.call("readEventJournal", harness.table("offset", 11));
+        LuaTable displayed = (LuaTable) records.get(1);
+        assertEquals("displayed", displayed.get("phase"));
+        assertEquals("\u5173\u5361\u5173\u5361\u5173\u5361\u5173\u5361\u5173", displayed.get("placement"));
+    }
+
+    @Test
+    public void rejectsInvalidOptions() {
+        assertNull(harness.call("readEventJournal", harness.table("offset", -1)));
+        assertNull(harness.call("readEventJournal", harness.table("limit", "all")));
+        assertNull(harness.call("readEventJournal", harness.table("page", 1)));
+        assertNull(harness.call("readEventJournal", "all"));
+
+        assertEquals(1, harness.getLogMessages("options.offset must not be negative").size());
+        assertEquals(1, harness.getLogMessages("options.limit (number) expected, got: string").size());
+        assertEquals(1, harness.getLogMessages("Invalid option 'page'").size());
+        assertEquals(1, harness.getLogMessages("options (table) expected, got string").size());
+    }
+}
@@ -0,0 +1,197 @@
+package plugin.applovin;
+
+import com.naef.jnlua.LuaState;
+import com.naef.jnlua.LuaType;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+import static plugin.applovin.StandInAdProvider.REWARDED;
+
+// the path from an SDK callback to the Lua listener reuses pooled event records and, with 'batchEvents',
+// a single drain task, so once warmed up it must not allocate on the calling thread
+public class EventPathAllocationTest {
+    private static final int WARMUP_ROUNDS = 20000;
+    private static final int MEASURED_ROUNDS = 1000;
+    private static final int ATTEMPTS = 5;
+
+    private final DiscardingLuaState L = new DiscardingLuaState();
+    private final PluginHarness harness = new PluginHarness(L, new StandInAdProvider());
+
+    @After
+    public void tearDown() {
+        L.setDiscarding(false);
+        harness.close();
+    }
+
+    @Test
+    public void batchedEventsDoNotAllocate() {
+        harness.init(harness.table("sdkKey", "key", "batchEvents", true));
+        assertEquals(0, measureEventPath(show(INTERSTITIAL)));
+    }
+
+    @Test
+    public void unbatchedEventsDoNotAllocate() {
+        harness.init(harness.table("sdkKey", "key"));
+        assertEquals(0, measureEventPath(show(REWARDED)));
+    }
+
+    private StandInAdProvider.Show show(String adType) {
+        harness.call("load", adType, harness.table("poolSize", 1));
+        harness.idle();
+        harness.provider.fill(adType);
+        harness.idle();
+        harness.call("show", adType);
+        harness.idle();
+        return harness.provider.getLastShow();
+    }
+
+    // bytes allocated by the fewest allocating of a few measured runs, so a one-off allocation
+    // outside the plugin (a class loaded late, a deque growing) doesn't fail the test
+    private long measureEventPath(StandInAdProvider.Show show) {
+        L.setDiscarding(true);
+        runEvents(show, WARMUP_ROUNDS);
+
+        long minAllocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            // what reading the counter itself allocates
+            long overhead = -allocatedBytes() + allocatedBytes();
+
+            int deliveredBefore = L.callCount;
+            long before = allocatedBytes();
+            runEvents(show, MEASURED_ROUNDS);
+            long allocated = allocatedBytes() - before - overhead;
+
+            assertEquals(3 * MEASURED_ROUNDS, L.callCount - deliveredBefore);
+            assertEquals(0, L.depth);
+            minAllocated = Math.min(minAllocated, allocated);
+        }
+        return minAllocated;
+    }
+
+    // three events per round, each through its own listener of the show, then the Corona thread delivers them
+    private void runEvents(StandInAdProvider.Show show, int rounds) {
+        for (int i = 0; i < rounds; i++) {
+            show.clickListener.adClicked(show.ad);
+            show.playbackListener.videoPlaybackBegan(show.ad);
+            show.playbackListener.videoPlaybackEnded(show.ad, 100, true);
+            harness.runtime.runPendingTasks();
+        }
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // once discarding, only counts the values pushed and the listener calls, so the Lua side of the
+    // event path doesn't allocate. the listener ref is always a function
+    private static class DiscardingLuaState extends LuaState {
+        private boolean isDiscarding;
+        int depth;
+        int callCount;
+
+        void setDiscarding(boolean isDiscarding) {
+            this.isDiscarding = isDiscarding;
+        }
+
+        @Override
+        public void newTable() {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.newTable();
+            }
+        }
+
+        @Override
+        public void newTable(int arrayCount, int recordCount) {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.newTable(arrayCount, recordCount);
+            }
+        }
+
+        @Override
+        public void pushBoolean(boolean b) {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.pushBoolean(b);
+            }
+        }
+
+        @Override
+        public void pushNumber(double n) {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.pushNumber(n);
+            }
+        }
+
+        @Override
+        public void pushInteger(int n) {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.pushInteger(n);
+            }
+        }
+
+        @Override
+        public void pushString(String s) {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.pushString(s);
+            }
+        }
+
+        @Override
+        public void setField(int index, String key) {
+            if (isDiscarding) {
+                depth--;
+            } else {
+                super.setField(index, key);
+            }
+        }
+
+        @Override
+        public void rawGet(int index, int key) {
+            if (isDiscarding) {
+                depth++;
+            } else {
+                super.rawGet(index, key);
+            }
+        }
+
+        @Override
+        public LuaType type(int index) {
+            return isDiscarding ? LuaType.FUNCTION : super.type(index);
+        }
+
+        @Override
+        public void insert(int index) {
+            if (!isDiscarding) {
+                super.insert(index);
+            }
+        }
+
+        @Override
+        public void call(int argCount, int returnCount) {
+            if (isDiscarding) {
+                depth -= argCount + 1 - returnCount;
+                callCount++;
+            } else {
+                super.call(argCount, returnCount);
+            }
+        }
+    }
+}
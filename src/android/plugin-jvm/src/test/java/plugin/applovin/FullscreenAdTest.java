@@ -0,0 +1,291 @@
+package plugin.applovin;
+
+import com.applovin.sdk.AppLovinErrorCodes;
+import com.naef.jnlua.LuaTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+import static plugin.applovin.StandInAdProvider.REWARDED;
+
+public class FullscreenAdTest {
+    private PluginHarness harness;
+    private StandInAdProvider provider;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+        provider = harness.provider;
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    private void init(Object... options) {
+        Object[] keyValues = Arrays.copyOf(new Object[]{"sdkKey", "key"}, options.length + 2);
+        System.arraycopy(options, 0, keyValues, 2, options.length);
+        harness.init(harness.table(keyValues));
+        harness.clearEvents();
+    }
+
+    // the pool size outlives the runtime like the pool itself, so every load sets it
+    private void load(Object adType) {
+        harness.call("load", adType, harness.table("poolSize", 1));
+    }
+
+    @Test
+    public void interstitialLoadShowAndHide() {
+        init();
+        load("interstitial");
+        harness.idle();
+        assertEquals(1, provider.getPendingLoadCount(INTERSTITIAL));
+        assertEquals(false, harness.call("isLoaded", "interstitial"));
+
+        provider.fill(INTERSTITIAL);
+        harness.idle();
+        assertEquals(true, harness.call("isLoaded", "interstitial"));
+        assertEquals(Collections.singletonList("interstitial:loaded"), harness.getEventPhases());
+
+        harness.call("show", "interstitial");
+        harness.idle();
+        StandInAdProvider.Show show = provider.getLastShow();
+        assertNull(show.rewardListener);
+        assertEquals(false, harness.call("isLoaded", "interstitial"));
+
+        show.displayListener.adDisplayed(show.ad);
+        show.displayListener.adHidden(show.ad);
+        harness.idle();
+        assertEquals(Arrays.asList("interstitial:loaded", "interstitial:displayed", "interstitial:hidden"), harness.getEventPhases());
+
+        // a single ad pool isn't refilled without autoReload
+        assertEquals(0, provider.getPendingLoadCount(INTERSTITIAL));
+    }
+
+    @Test
+    public void legacyBooleanAdType() {
+        init();
+        load(true);
+        harness.idle();
+        assertEquals(1, provider.getPendingLoadCount(REWARDED));
+
+        provider.fill(REWARDED);
+        harness.idle();
+        assertEquals(true, harness.call("isLoaded", true));
+        assertEquals(false, harness.call("isLoaded", false));
+    }
+
+    @Test
+    public void showWithoutLoadedAd() {
+        init();
+        harness.call("show", "interstitial");
+        harness.call("show", "rewardedVideo");
+        harness.idle();
+
+        assertEquals(1, harness.getLogMessages("Interstitial not loaded").size());
+        assertEquals(1, harness.getLogMessages("Rewarded video not loaded").size());
+        assertEquals(0, provider.getShows().size());
+        assertEquals(Collections.<String>emptyList(), harness.getEventPhases());
+    }
+
+    @Test
+    public void invalidArguments() {
+        init();
+        harness.call("load", "video");
+        harness.call("load", "interstitial", harness.table("poolSize", 9));
+        harness.call("show", "interstitial", harness.table("x", 1));
+        harness.call("isLoaded", 1);
+
+        assertEquals(1, harness.getLogMessages("Invalid adType 'video'").size());
+        assertEquals(1, harness.getLogMessages("options.poolSize must be between 1 and 4").size());
+        assertEquals(1, harness.getLogMessages("Invalid option 'x'").size());
+        assertEquals(1, harness.getLogMessages("adType (string) expected, got: number").size());
+    }
+
+    @Test
+    public void poolFillsAndAutoReloadRefills() {
+        init("autoReload", true);
+        harness.call("load", "interstitial", harness.table("poolSize", 2));
+        harness.idle();
+        assertEquals(2, provider.fillAll(INTERSTITIAL));
+        harness.idle();
+
+        harness.call("show", "interstitial");
+        harness.idle();
+        assertEquals(true, harness.call("isLoaded", "interstitial"));
+        assertEquals(1, provider.getPendingLoadCount(INTERSTITIAL));
+    }
+
+    @Test
+    public void rewardedShowPassesPlacementAndReward() {
+        init();
+        load("rewardedVideo");
+        harness.idle();
+        provider.fill(REWARDED);
+        harness.idle();
+
+        harness.call("show", "rewardedVideo", harness.table("placement", "level1"));
+        harness.idle();
+        StandInAdProvider.Show show = provider.getLastShow();
+        assertEquals("level1", show.placement);
+
+        show.playbackListener.videoPlaybackBegan(null);
+        show.playbackListener.videoPlaybackEnded(null, 100, true);
+        show.rewardListener.userRewardVerified(null, Collections.singletonMap("amount", "5"));
+        show.displayListener.adHidden(null);
+        harness.idle();
+
+        assertEquals(Arrays.asList("rewardedVideo:loaded", "rewardedVideo:displayed", "rewardedVideo:playbackBegan",
+                "rewardedVideo:playbackEnded", "rewardedVideo:validationSucceeded", "rewardedVideo:hidden"), harness.getEventPhases());
+        LuaTable data = (LuaTable) harness.getEvents().get(4).get("data");
+        assertEquals("5", data.get("amount"));
+    }
+
+    // the rewarded instance of a shown ad preloads again once the ad has been hidden
+    @Test
+    public void hiddenRewardedInstanceIsReused() {
+        init();
+        for (int i = 0; i < 3; i++) {
+            load("rewardedVideo");
+            harness.idle();
+            provider.fill(REWARDED);
+            harness.idle();
+
+            harness.call("show", "rewardedVideo");
+            harness.idle();
+            provider.getLastShow().displayListener.adHidden(null);
+            harness.idle();
+        }
+
+        assertEquals(1, provider.getRewardedAds().size());
+    }
+
+    @Test
+    public void failedLoadIsRetriedWithBackoff() {
+        init("maxLoadRetries", 2);
+        load("interstitial");
+        harness.idle();
+
+        provider.fail(INTERSTITIAL, AppLovinErrorCodes.NO_FILL);
+        harness.idle();
+        LuaTable event = harness.getLastEvent();
+        assertEquals("failed", event.get("phase"));
+        assertEquals(true, event.get("isError"));
+        assertEquals((double) AppLovinErrorCodes.NO_FILL, event.get("errorCode"));
+        assertEquals(1.0, event.get("retryAttempt"));
+        assertEquals("No ads available (Error code 204)", event.get("response"));
+
+        // the first retry comes after 1 to 2 seconds
+        harness.advance(999);
+        assertEquals(0, provider.getPendingLoadCount(INTERSTITIAL));
+        harness.advance(1001);
+        assertEquals(1, provider.getPendingLoadCount(INTERSTITIAL));
+
+        provider.fail(INTERSTITIAL, AppLovinErrorCodes.NO_FILL);
+        harness.advance(4000);
+        provider.fail(INTERSTITIAL, AppLovinErrorCodes.NO_FILL);
+        harness.advance(60000);
+        assertEquals(0, provider.getPendingLoadCount(INTERSTITIAL));
+        assertEquals(0.0, harness.getLastEvent().get("retryAttempt"));
+    }
+
+    @Test
+    public void nonRetryableErrorIsNotRetried() {
+        init("maxLoadRetries", 2);
+        load("interstitial");
+        harness.idle();
+
+        provider.fail(INTERSTITIAL, AppLovinErrorCodes.UNABLE_TO_RENDER_AD);
+        harness.advance(60000);
+        assertEquals(0.0, harness.getLastEvent().get("retryAttempt"));
+        assertEquals(0, provider.getPendingLoadCount(INTERSTITIAL));
+    }
+
+    // loads requested while the sdk initializes start once it is ready, in order and before later loads
+    @Test
+    public void loadsBeforeSdkReadyAreReplayedInOrder() {
+        provider.setAutoInitialize(false);
+        harness.init(harness.table("sdkKey", "key"));
+        load("rewardedVideo");
+        load("interstitial");
+        harness.idle();
+        assertEquals(0, provider.getPendingLoadCount(REWARDED));
+        assertEquals(0, provider.getPendingLoadCount(INTERSTITIAL));
+
+        provider.completeSdkInit();
+        harness.idle();
+        assertEquals(1, provider.getPendingLoadCount(REWARDED));
+        assertEquals(1, provider.getPendingLoadCount(INTERSTITIAL));
+        assertEquals("init", harness.getEventPhases().get(0));
+
+        provider.fill(REWARDED);
+        provider.fill(INTERSTITIAL);
+        harness.idle();
+        assertEquals(Arrays.asList("init", "rewardedVideo:loaded", "interstitial:loaded"), harness.getEventPhases());
+    }
+
+    @Test
+    public void expiredAdsAreReloaded() {
+        init("adTtl", 60);
+        load("interstitial");
+        harness.idle();
+        provider.fill(INTERSTITIAL);
+        harness.idle();
+
+        harness.advance(59000);
+        assertEquals(true, harness.call("isLoaded", "interstitial"));
+        harness.advance(1000);
+        assertEquals(false, harness.call("isLoaded", "interstitial"));
+        assertEquals(1, provider.getPendingLoadCount(INTERSTITIAL));
+    }
+
+    // moderate memory pressure keeps unexpired preloaded ads, critical pressure releases and later reloads them
+    @Test
+    public void memoryPressure() {
+        init();
+        load("interstitial");
+        harness.idle();
+        provider.fill(INTERSTITIAL);
+        harness.idle();
+
+        trimMemory(android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(true, harness.call("isLoaded", "interstitial"));
+
+        trimMemory(android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL);
+        assertEquals(false, harness.call("isLoaded", "interstitial"));
+        assertEquals(0, provider.getPendingLoadCount(INTERSTITIAL));
+
+        harness.advance(30000);
+        assertEquals(1, provider.getPendingLoadCount(INTERSTITIAL));
+    }
+
+    @Test
+    public void preservedAdsSurviveTheRuntime() {
+        init("preserveAds", true);
+        load("interstitial");
+        harness.idle();
+        provider.fill(INTERSTITIAL);
+        harness.idle();
+        harness.close();
+
+        harness = new PluginHarness();
+        harness.init(harness.table("sdkKey", "key"));
+        assertEquals(0, harness.provider.getCreatedSdkCount());
+        assertEquals(true, harness.call("isLoaded", "interstitial"));
+    }
+
+    private void trimMemory(int level) {
+        assertEquals(1, harness.activity.getComponentCallbacks().size());
+        ((android.content.ComponentCallbacks2) harness.activity.getComponentCallbacks().get(0)).onTrimMemory(level);
+        harness.idle();
+    }
+}
@@ -0,0 +1,147 @@
+package plugin.applovin;
+
+import com.naef.jnlua.LuaTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InitTest {
+    private PluginHarness harness;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void initSendsInitEventOnceTheSdkIsReady() {
+        harness.provider.setAutoInitialize(false);
+        harness.init(harness.table("sdkKey", "key"));
+        assertTrue(harness.getEvents().isEmpty());
+        assertEquals(1, harness.provider.getCreatedSdkCount());
+
+        harness.advance(250);
+        harness.provider.completeSdkInit();
+        harness.idle();
+
+        LuaTable event = harness.getLastEvent();
+        assertEquals(Collections.singletonList("init"), harness.getEventPhases());
+        assertEquals("adsRequest", event.get("name"));
+        assertEquals("applovin", event.get("provider"));
+        assertEquals(false, event.get("isError"));
+        assertEquals(250.0, event.get("initDuration"));
+    }
+
+    @Test
+    public void initKeepsOneListenerReference() {
+        harness.init(harness.table("sdkKey", "key"));
+        assertEquals(1, harness.getLiveLuaRefCount());
+
+        harness.call("init", harness.listener, harness.table("sdkKey", "key"));
+        assertEquals(1, harness.getLiveLuaRefCount());
+        assertEquals(1, harness.getLogMessages("init() should only be called once").size());
+
+        harness.close();
+        assertEquals(0, harness.getLiveLuaRefCount());
+    }
+
+    @Test
+    public void initRequiresSdkKey() {
+        harness.init(harness.table("verboseLogging", true));
+
+        assertEquals(1, harness.getLogMessages("options.sdkKey is required").size());
+        assertEquals(0, harness.provider.getCreatedSdkCount());
+        assertTrue(harness.getEvents().isEmpty());
+    }
+
+    @Test
+    public void callsBeforeInitAreRejected() {
+        harness.call("load", "interstitial");
+        harness.call("show", "interstitial");
+        assertEquals(2, harness.getLogMessages("applovin.init() must be called before calling other API functions").size());
+        assertEquals(null, harness.call("isLoaded", "interstitial"));
+    }
+
+    @Test
+    public void initRejectsInvalidOptions() {
+        assertInitError(harness.table("sdkKey", "key", "unknown", true), "Invalid option 'unknown'");
+        assertInitError(harness.table("sdkKey", "key", "maxLoadRetries", -1), "options.maxLoadRetries must be 0 or greater");
+        assertInitError(harness.table("sdkKey", "key", "batchEvents", "yes"), "options.batchEvents (boolean) expected, got: string");
+        assertInitError(harness.table("sdkKey", "key", "logLevel", "verbose"), "Invalid options.logLevel 'verbose'");
+        assertInitError(harness.table("sdkKey", "key", "eventJournalSize", 4096), "options.eventJournalSize must be between 0 and 1024");
+    }
+
+    // the version is an info message: skipped at the default level, logged and kept in the diagnostic log at "info"
+    @Test
+    public void versionIsLoggedAtInfoLevel() {
+        harness.init(harness.table("sdkKey", "key"));
+        assertEquals(0, harness.getLogMessages("plugin.applovin (SDK: ").size());
+
+        harness.close();
+        harness = new PluginHarness();
+        harness.init(harness.table("sdkKey", "key", "logLevel", "info"));
+        assertEquals(1, harness.getLogMessages("plugin.applovin (SDK: 10.3.1)").size());
+
+        LuaTable diagnosticLog = (LuaTable) harness.call("getDiagnosticLog");
+        LuaTable entry = (LuaTable) diagnosticLog.get(1);
+        assertEquals("info", entry.get("level"));
+        assertEquals("plugin.applovin (SDK: 10.3.1)", entry.get("message"));
+    }
+
+    @Test
+    public void batchedEventsArriveInOrder() {
+        harness.init(harness.table("sdkKey", "key", "batchEvents", true));
+        harness.call("load", "interstitial", harness.table("poolSize", 2));
+        harness.idle();
+
+        harness.provider.fill(StandInAdProvider.INTERSTITIAL);
+        harness.provider.fail(StandInAdProvider.INTERSTITIAL, com.applovin.sdk.AppLovinErrorCodes.NO_FILL);
+        assertEquals(Collections.singletonList("init"), harness.getEventPhases());
+
+        harness.idle();
+        assertEquals(Arrays.asList("init", "interstitial:loaded", "interstitial:failed"), harness.getEventPhases());
+    }
+
+    @Test
+    public void adCountsAreKeptAcrossRuntimes() {
+        harness.init(harness.table("sdkKey", "key"));
+        harness.call("load", "banner");
+        harness.idle();
+        harness.provider.fill(StandInAdProvider.BANNER);
+
+        LuaTable counts = (LuaTable) harness.call("getAdCounts");
+        double bannerCount = (Double) counts.get("banner");
+        assertTrue(bannerCount >= 1);
+
+        harness.suspend();
+        harness.close();
+
+        harness = new PluginHarness();
+        harness.init(harness.table("sdkKey", "key"));
+        counts = (LuaTable) harness.call("getAdCounts");
+        assertEquals(bannerCount, counts.get("banner"));
+    }
+
+    // init() in a fresh runtime logs the error and neither creates the sdk nor sends an event
+    private void assertInitError(LuaTable options, String message) {
+        harness.close();
+        harness = new PluginHarness();
+        harness.init(options);
+
+        assertEquals(message, 1, harness.getLogMessages(message).size());
+        assertEquals(0, harness.provider.getCreatedSdkCount());
+        assertTrue(harness.getEvents().isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+package plugin.applovin;
+
+import com.naef.jnlua.LuaTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// the init option 'simulation' replaces the SDK with the plugin's own stand-in: loads fill after the
+// configured latency, shows play out their callbacks over the configured duration
+public class SimulationTest {
+    private static final long LATENCY_MS = 200;
+    private static final long SHOW_DURATION_MS = 500;
+
+    private PluginHarness harness;
+    private StandInAdProvider provider;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+        provider = harness.provider;
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    // fixed latency, no clicks, so every run plays out the same
+    private void init(Object... simulationOptions) {
+        Object[] keyValues = Arrays.copyOf(new Object[]{"minLatency", LATENCY_MS, "maxLatency", LATENCY_MS,
+                "showDuration", SHOW_DURATION_MS}, simulationOptions.length + 6);
+        System.arraycopy(simulationOptions, 0, keyValues, 6, simulationOptions.length);
+        harness.init(harness.table("sdkKey", "key", "simulation", harness.table(keyValues)));
+        assertEquals(Collections.singletonList("init"), harness.getEventPhases());
+        harness.clearEvents();
+    }
+
+    private void load(String adType) {
+        harness.call("load", adType, harness.table("poolSize", 1));
+        harness.idle();
+        assertEquals(false, harness.call("isLoaded", adType));
+
+        harness.advance(LATENCY_MS);
+        assertEquals(true, harness.call("isLoaded", adType));
+    }
+
+    private void showRewarded() {
+        load("rewardedVideo");
+        harness.call("show", "rewardedVideo");
+        harness.advance(SHOW_DURATION_MS);
+    }
+
+    @Test
+    public void interstitialLoadsAndShows() {
+        init();
+        load("interstitial");
+        harness.call("show", "interstitial");
+        harness.advance(SHOW_DURATION_MS);
+
+        assertEquals(Arrays.asList("interstitial:loaded", "interstitial:displayed", "interstitial:hidden"), harness.getEventPhases());
+        // the simulation stands in for the provider the plugin was given
+        assertEquals(0, provider.getShows().size());
+    }
+
+    @Test
+    public void failedLoadsUseTheConfiguredErrorCodes() {
+        init("fillRate", 0, "errorCodes", harness.table(1, 204));
+        harness.call("load", "interstitial", harness.table("poolSize", 1));
+        harness.advance(LATENCY_MS);
+
+        assertEquals(Collections.singletonList("interstitial:failed"), harness.getEventPhases());
+        assertEquals(204.0, harness.getLastEvent().get("errorCode"));
+        assertEquals(false, harness.call("isLoaded", "interstitial"));
+    }
+
+    @Test
+    public void verifiedReward() {
+        init("rewardOutcome", "verified");
+        showRewarded();
+
+        assertEquals(Arrays.asList("rewardedVideo:loaded", "rewardedVideo:displayed", "rewardedVideo:playbackBegan",
+                "rewardedVideo:playbackEnded", "rewardedVideo:validationSucceeded", "rewardedVideo:hidden"), harness.getEventPhases());
+        LuaTable data = (LuaTable) harness.getEvents().get(4).get("data");
+        assertEquals("coins", data.get("currency"));
+        assertEquals("1", data.get("amount"));
+    }
+
+    @Test
+    public void overQuotaReward() {
+        init("rewardOutcome", "overQuota");
+        showRewarded();
+
+        assertEquals("rewardedVideo:validationExceededQuota", harness.getEventPhases().get(4));
+        assertEquals(true, harness.getEvents().get(4).get("isError"));
+        assertEquals(0, harness.L.getTop());
+    }
+
+    @Test
+    public void rejectedReward() {
+        init("rewardOutcome", "rejected");
+        showRewarded();
+
+        assertEquals("rewardedVideo:validationRejected", harness.getEventPhases().get(4));
+        assertEquals(true, harness.getEvents().get(4).get("isError"));
+        assertEquals(0, harness.L.getTop());
+    }
+
+    @Test
+    public void failedRewardValidation() {
+        init("rewardOutcome", "failed");
+        showRewarded();
+
+        assertEquals("rewardedVideo:validationFailed", harness.getEventPhases().get(4));
+        assertEquals(true, harness.getEvents().get(4).get("isError"));
+    }
+
+    @Test
+    public void bannerLoadsShowsAndHides() {
+        init();
+        harness.call("load", "banner");
+        harness.idle();
+        assertEquals(false, harness.call("isLoaded", "banner"));
+
+        harness.advance(LATENCY_MS);
+        assertEquals(true, harness.call("isLoaded", "banner"));
+
+        harness.call("show", "banner");
+        harness.idle();
+        assertEquals(Arrays.asList("banner:loaded", "banner:displayed"), harness.getEventPhases());
+        assertEquals(0, harness.getLogMessages("Banner not loaded").size());
+        assertTrue(harness.activity.getOverlayView().getChildCount() > 0);
+
+        harness.call("hide", "banner");
+        harness.idle();
+        assertEquals(Arrays.asList("banner:loaded", "banner:displayed", "banner:hidden"), harness.getEventPhases());
+        assertEquals(false, harness.call("isLoaded", "banner"));
+    }
+
+    @Test
+    public void invalidSimulationOptions() {
+        harness.call("init", harness.listener, harness.table("sdkKey", "key",
+                "simulation", harness.table("rewardOutcome", "granted")));
+        harness.idle();
+
+        assertEquals(1, harness.getLogMessages("Invalid options.simulation.rewardOutcome 'granted'").size());
+        assertEquals(Collections.<String>emptyList(), harness.getEventPhases());
+    }
+}
@@ -0,0 +1,104 @@
+package plugin.applovin;
+
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static plugin.applovin.StandInAdProvider.BANNER;
+import static plugin.applovin.StandInAdProvider.INTERSTITIAL;
+import static plugin.applovin.StandInAdProvider.REWARDED;
+
+// repeated load / show / hide cycles of all ad types. after the warm-up cycles nothing the plugin
+// holds may grow: the heap, the banner views, its Lua references and the events not yet delivered
+public class SoakTest {
+    private static final int CYCLES = 3000;
+    private static final int WARMUP_CYCLES = 300;
+    private static final long MAX_HEAP_GROWTH_BYTES = 2 * 1024 * 1024;
+
+    private static final List<String> CYCLE_EVENTS = Arrays.asList(
+            "banner:loaded", "banner:displayed", "banner:hidden",
+            "interstitial:loaded", "interstitial:displayed", "interstitial:hidden",
+            "rewardedVideo:loaded", "rewardedVideo:displayed", "rewardedVideo:hidden");
+
+    private PluginHarness harness;
+    private StandInAdProvider provider;
+    private FrameLayout overlay;
+
+    @Before
+    public void setUp() {
+        harness = new PluginHarness();
+        provider = harness.provider;
+        overlay = harness.activity.getOverlayView();
+        harness.init(harness.table("sdkKey", "key"));
+        harness.clearEvents();
+    }
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void loadShowHideCyclesDoNotLeak() {
+        for (int i = 0; i < WARMUP_CYCLES; i++) {
+            runCycle();
+        }
+        provider.clearHistory();
+
+        long baselineHeapBytes = getUsedHeapBytes();
+        int baselineOverlayViews = overlay.getChildCount();
+
+        for (int i = WARMUP_CYCLES; i < CYCLES; i++) {
+            runCycle();
+
+            // banner views are reused, a cycle doesn't create one
+            assertEquals("banner views created in cycle " + i, 0, provider.getBannerViews().size());
+            assertEquals("overlay views in cycle " + i, baselineOverlayViews, overlay.getChildCount());
+            provider.clearHistory();
+        }
+
+        long heapGrowthBytes = getUsedHeapBytes() - baselineHeapBytes;
+        assertTrue("Heap grew by " + (heapGrowthBytes / 1024) + " KB", heapGrowthBytes < MAX_HEAP_GROWTH_BYTES);
+    }
+
+    // one load / show / hide of each ad type, every event has reached the listener when it returns
+    private void runCycle() {
+        for (String adType : Arrays.asList(BANNER, INTERSTITIAL, REWARDED)) {
+            harness.call("load", adType, harness.table("poolSize", 1));
+            harness.idle();
+            provider.fill(adType);
+            harness.idle();
+            harness.call("show", adType);
+            harness.idle();
+
+            if (BANNER.equals(adType)) {
+                harness.call("hide", adType);
+            } else {
+                StandInAdProvider.Show show = provider.getLastShow();
+                show.displayListener.adHidden(show.ad);
+            }
+            harness.idle();
+        }
+
+        assertEquals(CYCLE_EVENTS, harness.getEventPhases());
+        assertEquals(0, harness.runtime.getPendingTaskCount());
+        assertEquals(1, harness.getLiveLuaRefCount());
+        harness.clearEvents();
+    }
+
+    private static long getUsedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,114 @@
+package plugin.applovin;
+
+import android.os.SystemClock;
+
+import com.applovin.adview.AppLovinAdView;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinErrorCodes;
+import com.naef.jnlua.LuaState;
+import com.naef.jnlua.LuaTable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static plugin.applovin.StandInAdProvider.BANNER;
+
+// every runnable the plugin runs on the UI thread is timed, the slow ones are reported as 'perfWarning' events
+public class UiOperationTimingTest {
+    private static final long SLOW_LOAD_MS = 50;
+
+    // banner loads take SLOW_LOAD_MS of (virtual) UI thread time
+    private final StandInAdProvider provider = new StandInAdProvider() {
+        @Override
+        public synchronized void loadBanner(AppLovinAdView bannerAd, AppLovinAdLoadListener listener) {
+            SystemClock.advanceBy(SLOW_LOAD_MS);
+            super.loadBanner(bannerAd, listener);
+        }
+    };
+    private final PluginHarness harness = new PluginHarness(new LuaState(), provider);
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    // "<operation>:<type>" of the perfWarning events received so far
+    private List<String> getPerfWarnings() {
+        List<String> warnings = new ArrayList<>();
+        for (LuaTable event : harness.getEvents()) {
+            if ("perfWarning".equals(event.get("phase"))) {
+                assertEquals((double) SLOW_LOAD_MS, event.get("duration"));
+                warnings.add(event.get("operation") + ":" + event.get("type"));
+            }
+        }
+        return warnings;
+    }
+
+    // operations listed by applovin.getMetrics()
+    private List<Object> getSlowUiOperations() {
+        LuaTable metrics = (LuaTable) harness.call("getMetrics");
+        LuaTable slowUiOperations = (LuaTable) metrics.get("slowUiOperations");
+        List<Object> operations = new ArrayList<>();
+        for (int i = 1; i <= slowUiOperations.length(); i++) {
+            operations.add(((LuaTable) slowUiOperations.get(i)).get("operation"));
+        }
+        return operations;
+    }
+
+    @Test
+    public void lifecycleOperationsAreTimed() {
+        harness.init(harness.table("sdkKey", "key"));
+        harness.suspend();
+        harness.resume();
+
+        List<Object> operations = getSlowUiOperations();
+        assertTrue(operations.toString(), operations.containsAll(Arrays.asList("init", "suspend", "resume")));
+    }
+
+    @Test
+    public void replayedLoadIsTimedOnItsOwn() {
+        provider.setAutoInitialize(false);
+        harness.init(harness.table("sdkKey", "key", "perfWarningThreshold", 16));
+        harness.call("load", "banner");
+        harness.idle();
+        assertEquals(0, provider.getPendingLoadCount(BANNER));
+
+        provider.completeSdkInit();
+        harness.idle();
+        assertEquals(1, provider.getPendingLoadCount(BANNER));
+        assertEquals(Arrays.asList("init", "banner:perfWarning"), harness.getEventPhases().subList(0, 2));
+        assertEquals(Arrays.asList("load:banner"), getPerfWarnings());
+    }
+
+    @Test
+    public void retriedLoadIsTimed() {
+        harness.init(harness.table("sdkKey", "key", "perfWarningThreshold", 16, "maxLoadRetries", 1));
+        harness.call("load", "banner");
+        harness.idle();
+        provider.fail(BANNER, AppLovinErrorCodes.NO_FILL);
+        harness.advance(2000);
+
+        assertEquals(1, provider.getPendingLoadCount(BANNER));
+        assertEquals(Arrays.asList("load:banner", "retryLoad:banner"), getPerfWarnings());
+        assertTrue(getSlowUiOperations().contains("retryLoad"));
+    }
+
+    @Test
+    public void fastOperationsSendNoWarning() {
+        harness.init(harness.table("sdkKey", "key", "perfWarningThreshold", SLOW_LOAD_MS + 1));
+        harness.call("load", "banner");
+        harness.idle();
+        provider.fill(BANNER);
+        harness.idle();
+
+        assertEquals(Arrays.asList("init", "banner:loaded"), harness.getEventPhases());
+        assertTrue(getSlowUiOperations().contains("load"));
+    }
+}
@@ -0,0 +1,240 @@
+package plugin.applovin;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.ansca.corona.CoronaActivity;
+import com.ansca.corona.CoronaEnvironment;
+import com.ansca.corona.CoronaRuntime;
+import com.naef.jnlua.JavaFunction;
+import com.naef.jnlua.LuaState;
+import com.naef.jnlua.LuaTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+// loads the plugin into a stand-in Corona runtime and calls its Lua API like a Lua script would.
+// the thread creating the harness is the main thread and the Corona thread, nothing runs behind the
+// test's back: idle() and advance() run whatever the plugin has posted by then
+public class PluginHarness {
+    private static final String MODULE_NAME = "plugin.applovin";
+
+    public final CoronaActivity activity = new CoronaActivity();
+    public final LuaState L;
+    public final CoronaRuntime runtime;
+    public final LuaLoader loader;
+    public final StandInAdProvider provider;
+
+    private final LuaTable module;
+    private final List<LuaTable> events = new ArrayList<>();
+    private boolean isClosed;
+
+    // the Lua listener passed to applovin.init(), keeping the events it receives
+    public final JavaFunction listener = new JavaFunction() {
+        @Override
+        public int invoke(LuaState L) {
+            events.add((LuaTable) L.toJavaObject(1));
+            return 0;
+        }
+    };
+
+    public PluginHarness() {
+        this(new LuaState(), new StandInAdProvider());
+    }
+
+    public PluginHarness(LuaState L, StandInAdProvider provider) {
+        Looper.prepareMainLooper();
+        Looper.getMainLooper().clear();
+        Log.clear();
+        CoronaEnvironment.setCoronaActivity(activity);
+
+        this.L = L;
+        this.provider = provider;
+        runtime = new CoronaRuntime(L);
+        loader = new LuaLoader();
+        loader.onLoaded(runtime);
+
+        // require("plugin.applovin")
+        L.pushJavaFunction(loader);
+        L.pushString(MODULE_NAME);
+        L.call(1, 1);
+        module = (LuaTable) L.toJavaObject(-1);
+        L.pop(1);
+
+        // restored by onExiting(), so it is set again for every runtime
+        loader.setAdProvider(provider);
+    }
+
+    // -- Lua API
+
+    // call applovin.<name>(args...) and return its first result, or null if it returned nothing.
+    // Map arguments are passed as tables
+    public Object call(String name, Object... args) {
+        Object function = module.get(name);
+        if (function == null) {
+            throw new IllegalArgumentException("No function applovin." + name);
+        }
+
+        int top = L.getTop();
+        L.pushJavaObject(function);
+        for (Object arg : args) {
+            L.pushJavaObject(toLua(arg));
+        }
+        L.call(args.length, 1);
+        Object result = L.toJavaObject(-1);
+        L.setTop(top);
+        return result;
+    }
+
+    // applovin.init() with this harness' listener, waits for the sdk unless the provider keeps it initializing
+    public void init(Map<?, ?> options) {
+        call("init", listener, options);
+        idle();
+    }
+
+    public LuaTable table(Object... keyValues) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            table.put(keyValues[i], toLua(keyValues[i + 1]));
+        }
+        return table;
+    }
+
+    // -- events
+
+    public List<LuaTable> getEvents() {
+        return events;
+    }
+
+    // phases of the events received so far, "<type>:<phase>" or "<phase>" for events without an ad type
+    public List<String> getEventPhases() {
+        List<String> phases = new ArrayList<>();
+        for (LuaTable event : events) {
+            Object type = event.get("type");
+            phases.add((type != null) ? type + ":" + event.get("phase") : (String) event.get("phase"));
+        }
+        return phases;
+    }
+
+    public LuaTable getLastEvent() {
+        if (events.isEmpty()) {
+            throw new IllegalStateException("No events received");
+        }
+        return events.get(events.size() - 1);
+    }
+
+    public void clearEvents() {
+        events.clear();
+    }
+
+    // -- time
+
+    // run everything that is due: background work, main thread messages and Corona runtime tasks,
+    // until none of them has anything left
+    public void idle() {
+        int count;
+        do {
+            waitForBackgroundExecutor();
+            count = Looper.getMainLooper().runDueMessages();
+            count += runtime.runPendingTasks();
+        } while (count > 0);
+    }
+
+    // let time pass, running the delayed messages at the time they are due
+    public void advance(long ms) {
+        long target = SystemClock.uptimeMillis() + ms;
+        idle();
+
+        long next;
+        while ((next = Looper.getMainLooper().getNextMessageTime()) <= target) {
+            SystemClock.advanceBy(Math.max(0, next - SystemClock.uptimeMillis()));
+            idle();
+        }
+        SystemClock.advanceBy(target - SystemClock.uptimeMillis());
+        idle();
+    }
+
+    // -- lifecycle
+
+    public void suspend() {
+        loader.onSuspended(runtime);
+        idle();
+    }
+
+    public void resume() {
+        loader.onResumed(runtime);
+        idle();
+    }
+
+    // exit the runtime, the plugin is left as the next runtime finds it
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+
+        loader.onExiting(runtime);
+        idle();
+        runtime.setRunning(false);
+        CoronaEnvironment.removeRuntimeListener(loader);
+        Looper.getMainLooper().clear();
+    }
+
+    // -- inspection
+
+    // values held in the Lua registry, the plugin holds one: its listener
+    public int getLiveLuaRefCount() {
+        return L.getRegistrySize();
+    }
+
+    // log messages containing the given text
+    public List<String> getLogMessages(String text) {
+        List<String> messages = new ArrayList<>();
+        for (String message : Log.getMessages()) {
+            if (message.contains(text)) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    // the executor has a single thread: when a marker runs, the tasks queued before it have run,
+    // so an empty queue at that point means there is nothing left
+    private static void waitForBackgroundExecutor() {
+        Callable<Boolean> marker = new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return LuaLoader.backgroundExecutor.getQueue().isEmpty();
+            }
+        };
+
+        try {
+            while (!LuaLoader.backgroundExecutor.submit(marker).get()) {
+                // tasks queued by earlier tasks are still pending
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Object toLua(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if ((value instanceof Map) && !(value instanceof LuaTable)) {
+            LuaTable table = new LuaTable();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                table.put(toLua(entry.getKey()), toLua(entry.getValue()));
+            }
+            return table;
+        }
+        return value;
+    }
+}
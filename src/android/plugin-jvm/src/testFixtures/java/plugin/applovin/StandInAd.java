@@ -0,0 +1,38 @@
+package plugin.applovin;
+
+import com.applovin.sdk.AppLovinAd;
+import com.applovin.sdk.AppLovinAdSize;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// an ad delivered by the stand-in provider
+public class StandInAd implements AppLovinAd {
+    private static final AtomicLong nextAdId = new AtomicLong(1);
+
+    private final AppLovinAdSize size;
+    private final long adId = nextAdId.getAndIncrement();
+
+    public StandInAd(AppLovinAdSize size) {
+        this.size = size;
+    }
+
+    @Override
+    public AppLovinAdSize getSize() {
+        return size;
+    }
+
+    @Override
+    public long getAdIdNumber() {
+        return adId;
+    }
+
+    @Override
+    public String getZoneId() {
+        return null;
+    }
+
+    @Override
+    public boolean isVideoAd() {
+        return false;
+    }
+}
@@ -0,0 +1,214 @@
+package plugin.applovin;
+
+import android.content.Context;
+
+import com.ansca.corona.CoronaActivity;
+import com.applovin.adview.AppLovinAdView;
+import com.applovin.adview.AppLovinIncentivizedInterstitial;
+import com.applovin.sdk.AppLovinAd;
+import com.applovin.sdk.AppLovinAdClickListener;
+import com.applovin.sdk.AppLovinAdDisplayListener;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdRewardListener;
+import com.applovin.sdk.AppLovinAdSize;
+import com.applovin.sdk.AppLovinAdVideoPlaybackListener;
+import com.applovin.sdk.AppLovinSdk;
+import com.applovin.sdk.AppLovinSdkSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ad provider for the tests. loads stay pending until the test fills or fails them, shows are recorded
+// with the listeners the plugin passed, so the test can play back the SDK callbacks.
+// the callbacks are expected on the main thread, which is the test thread
+public class StandInAdProvider implements LuaLoader.CoronaAdProvider {
+    public static final String INTERSTITIAL = "interstitial";
+    public static final String REWARDED = "rewardedVideo";
+    public static final String BANNER = "banner";
+
+    // a shown fullscreen ad, rewardListener is null for interstitials
+    public static class Show {
+        public final AppLovinAd ad;
+        public final String placement;
+        public final AppLovinAdRewardListener rewardListener;
+        public final AppLovinAdVideoPlaybackListener playbackListener;
+        public final AppLovinAdDisplayListener displayListener;
+        public final AppLovinAdClickListener clickListener;
+
+        Show(AppLovinAd ad, String placement, AppLovinAdRewardListener rewardListener, AppLovinAdVideoPlaybackListener playbackListener,
+             AppLovinAdDisplayListener displayListener, AppLovinAdClickListener clickListener) {
+            this.ad = ad;
+            this.placement = placement;
+            this.rewardListener = rewardListener;
+            this.playbackListener = playbackListener;
+            this.displayListener = displayListener;
+            this.clickListener = clickListener;
+        }
+    }
+
+    private boolean autoInitialize = true;
+    private AppLovinSdk.SdkInitializationListener pendingInitListener;
+    private int createdSdkCount;
+
+    private final List<AppLovinAdLoadListener> pendingInterstitialLoads = new ArrayList<>();
+    private final List<AppLovinAdLoadListener> pendingRewardedLoads = new ArrayList<>();
+    private final List<AppLovinAdLoadListener> pendingBannerLoads = new ArrayList<>();
+    private final List<AppLovinIncentivizedInterstitial> rewardedAds = new ArrayList<>();
+    private final List<StandInBannerView> bannerViews = new ArrayList<>();
+    private final List<Show> shows = new ArrayList<>();
+
+    // -- CoronaAdProvider
+
+    @Override
+    public synchronized AppLovinSdk createSdk(String sdkKey, boolean verboseLogging, Context context) {
+        createdSdkCount++;
+        AppLovinSdkSettings sdkSettings = new AppLovinSdkSettings(context);
+        sdkSettings.setVerboseLogging(verboseLogging);
+        return AppLovinSdk.getInstance(sdkKey, sdkSettings, context);
+    }
+
+    @Override
+    public synchronized void initializeSdk(AppLovinSdk sdk, AppLovinSdk.SdkInitializationListener listener) {
+        if (autoInitialize) {
+            sdk.initializeSdk(listener);
+        } else {
+            pendingInitListener = listener;
+        }
+    }
+
+    @Override
+    public synchronized void loadInterstitial(AppLovinSdk sdk, AppLovinAdLoadListener listener) {
+        pendingInterstitialLoads.add(listener);
+    }
+
+    @Override
+    public synchronized AppLovinIncentivizedInterstitial createRewarded(AppLovinSdk sdk) {
+        AppLovinIncentivizedInterstitial rewardedAd = AppLovinIncentivizedInterstitial.create(sdk);
+        rewardedAds.add(rewardedAd);
+        return rewardedAd;
+    }
+
+    @Override
+    public synchronized void preloadRewarded(AppLovinIncentivizedInterstitial rewardedAd, AppLovinAdLoadListener listener) {
+        pendingRewardedLoads.add(listener);
+    }
+
+    @Override
+    public synchronized void showInterstitial(CoronaActivity coronaActivity, AppLovinSdk sdk, AppLovinAd ad, AppLovinAdDisplayListener displayListener,
+                                              AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdClickListener clickListener) {
+        shows.add(new Show(ad, null, null, playbackListener, displayListener, clickListener));
+    }
+
+    @Override
+    public synchronized void showRewarded(CoronaActivity coronaActivity, AppLovinIncentivizedInterstitial rewardedAd, String placement, AppLovinAdRewardListener rewardListener,
+                                          AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdDisplayListener displayListener, AppLovinAdClickListener clickListener) {
+        shows.add(new Show(null, placement, rewardListener, playbackListener, displayListener, clickListener));
+    }
+
+    @Override
+    public synchronized AppLovinAdView createBannerView(AppLovinSdk sdk, AppLovinAdSize adSize, CoronaActivity coronaActivity) {
+        StandInBannerView bannerView = new StandInBannerView(sdk, adSize, coronaActivity);
+        bannerViews.add(bannerView);
+        return bannerView;
+    }
+
+    @Override
+    public synchronized void loadBanner(AppLovinAdView bannerAd, AppLovinAdLoadListener listener) {
+        pendingBannerLoads.add(listener);
+    }
+
+    // -- controls
+
+    // keep the sdk initializing until completeSdkInit() is called
+    public synchronized void setAutoInitialize(boolean autoInitialize) {
+        this.autoInitialize = autoInitialize;
+    }
+
+    public void completeSdkInit() {
+        AppLovinSdk.SdkInitializationListener listener;
+        synchronized (this) {
+            listener = pendingInitListener;
+            pendingInitListener = null;
+        }
+        if (listener == null) {
+            throw new IllegalStateException("The sdk isn't initializing");
+        }
+        listener.onSdkInitialized(null);
+    }
+
+    // deliver an ad to the oldest pending load of the ad type
+    public void fill(String adType) {
+        AppLovinAdLoadListener listener = pollPendingLoad(adType);
+        listener.adReceived(new StandInAd(BANNER.equals(adType) ? AppLovinAdSize.BANNER : AppLovinAdSize.INTERSTITIAL));
+    }
+
+    // fail the oldest pending load of the ad type
+    public void fail(String adType, int errorCode) {
+        pollPendingLoad(adType).failedToReceiveAd(errorCode);
+    }
+
+    // fill every pending load of the ad type, returns how many there were
+    public int fillAll(String adType) {
+        int count = 0;
+        while (getPendingLoadCount(adType) > 0) {
+            fill(adType);
+            count++;
+        }
+        return count;
+    }
+
+    public synchronized int getPendingLoadCount(String adType) {
+        return pendingLoads(adType).size();
+    }
+
+    public synchronized int getCreatedSdkCount() {
+        return createdSdkCount;
+    }
+
+    public synchronized List<AppLovinIncentivizedInterstitial> getRewardedAds() {
+        return new ArrayList<>(rewardedAds);
+    }
+
+    public synchronized List<StandInBannerView> getBannerViews() {
+        return new ArrayList<>(bannerViews);
+    }
+
+    public synchronized List<Show> getShows() {
+        return new ArrayList<>(shows);
+    }
+
+    public synchronized Show getLastShow() {
+        if (shows.isEmpty()) {
+            throw new IllegalStateException("Nothing was shown");
+        }
+        return shows.get(shows.size() - 1);
+    }
+
+    // forget the recorded shows and banner views, eg. between the cycles of a long running test
+    public synchronized void clearHistory() {
+        shows.clear();
+        bannerViews.clear();
+        rewardedAds.clear();
+    }
+
+    private synchronized AppLovinAdLoadListener pollPendingLoad(String adType) {
+        List<AppLovinAdLoadListener> loads = pendingLoads(adType);
+        if (loads.isEmpty()) {
+            throw new IllegalStateException("No pending " + adType + " load");
+        }
+        return loads.remove(0);
+    }
+
+    private List<AppLovinAdLoadListener> pendingLoads(String adType) {
+        switch (adType) {
+            case INTERSTITIAL:
+                return pendingInterstitialLoads;
+            case REWARDED:
+                return pendingRewardedLoads;
+            case BANNER:
+                return pendingBannerLoads;
+            default:
+                throw new IllegalArgumentException("Invalid adType '" + adType + "'");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package plugin.applovin;
+
+import android.content.Context;
+
+import com.applovin.adview.AppLovinAdView;
+import com.applovin.sdk.AppLovinAdClickListener;
+import com.applovin.sdk.AppLovinAdDisplayListener;
+import com.applovin.sdk.AppLovinAdLoadListener;
+import com.applovin.sdk.AppLovinAdSize;
+import com.applovin.sdk.AppLovinSdk;
+
+// a banner view created by the stand-in provider, keeping track of what the plugin did with it
+public class StandInBannerView extends AppLovinAdView {
+    private boolean paused;
+    private boolean destroyed;
+
+    public StandInBannerView(AppLovinSdk sdk, AppLovinAdSize adSize, Context context) {
+        super(sdk, adSize, context);
+    }
+
+    @Override
+    public void pause() {
+        paused = true;
+    }
+
+    @Override
+    public void resume() {
+        paused = false;
+    }
+
+    @Override
+    public void destroy() {
+        destroyed = true;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    public AppLovinAdLoadListener getAdLoadListener() {
+        return adLoadListener;
+    }
+
+    public AppLovinAdDisplayListener getAdDisplayListener() {
+        return adDisplayListener;
+    }
+
+    public AppLovinAdClickListener getAdClickListener() {
+        return adClickListener;
+    }
+}
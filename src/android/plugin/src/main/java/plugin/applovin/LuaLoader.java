@@ -9,13 +9,21 @@ package plugin.applovin;
 
 import static android.content.res.Configuration.ORIENTATION_PORTRAIT;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.res.Configuration;
 import android.graphics.Point;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.Display;
 import android.view.Gravity;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
 import com.naef.jnlua.LuaState;
@@ -34,7 +42,29 @@ import com.ansca.corona.CoronaRuntimeTaskDispatcher;
 
 import static java.lang.Math.ceil;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 // Applovin
 import com.applovin.sdk.*;
@@ -54,9 +84,6 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
     private static final String TYPE_INTERSTITIAL = "interstitial";
     private static final String TYPE_REWARDEDVIDEO = "rewardedVideo";
 
-    // valid ad types
-    private static final List<String> validAdTypes = new ArrayList<>();
-
     // banner ad sizes
     private static final String BANNER_STANDARD = "standard";
     private static final String BANNER_LEADER = "leader";
@@ -87,220 +114,2575 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
     private static final String PHASE_VALIDATION_REJECTED = "validationRejected";
     private static final String PHASE_VALIDATION_FAILED = "validationFailed";
     private static final String PHASE_DECLINED_TO_VIEW = "declinedToView";
+    private static final String PHASE_PERF_WARNING = "perfWarning";
+
+    // phase codes of the event journal. part of the file format, only append to this list
+    private static final List<String> JOURNAL_PHASES = Arrays.asList(
+            PHASE_INIT, PHASE_DISPLAYED, PHASE_LOADED, PHASE_FAILED, PHASE_CLOSED, PHASE_CLICKED,
+            PHASE_PLAYBACK_BEGAN, PHASE_PLAYBACK_ENDED, PHASE_VALIDATION_SUCEEDED, PHASE_VALIDATION_EXCEEDED_QUOTA,
+            PHASE_VALIDATION_REJECTED, PHASE_VALIDATION_FAILED, PHASE_DECLINED_TO_VIEW, PHASE_PERF_WARNING);
+
+    // message constants
+    private static final String CORONA_TAG = "Corona";
+    private static final String ERROR_MSG = "ERROR: ";
+    private static final String WARNING_MSG = "WARNING: ";
+    private static final String INFO_MSG = "INFO: ";
+    private static final String DEBUG_MSG = "DEBUG: ";
+
+    // log levels (init option 'logLevel'). messages above the current level are dropped before they are built
+    private static final int LOG_NONE = 0;
+    private static final int LOG_ERROR = 1;
+    private static final int LOG_WARNING = 2;
+    private static final int LOG_INFO = 3;
+    private static final int LOG_DEBUG = 4;
+    private static final List<String> LOG_LEVEL_NAMES = Arrays.asList("none", "error", "warning", "info", "debug");
+    private static final String LOG_LEVEL_NAMES_HINT = "'. Valid values: " + LOG_LEVEL_NAMES;
+    private static final String[] LOG_PREFIXES = {"", ERROR_MSG, WARNING_MSG, INFO_MSG, DEBUG_MSG};
+    private static volatile int logLevel = LOG_WARNING;
+
+    // number of entries kept by the diagnostic log
+    private static final int DIAGNOSTIC_LOG_SIZE = 64;
+
+    // add missing event keys
+    private static final String EVENT_PHASE_KEY = "phase";
+    private static final String EVENT_DATA_KEY = "data";
+    private static final String EVENT_TYPE_KEY = "type";
+
+    // event data kinds (see CoronaEventRecord)
+    private static final int EVENT_DATA_NONE = 0;
+    private static final int EVENT_DATA_STRING = 1;
+    private static final int EVENT_DATA_PLAYBACK = 2;
+    private static final int EVENT_DATA_MAP = 3;
+
+    // extra event keys for failed loads
+    private static final String EVENT_ERROR_CODE_KEY = "errorCode";
+    private static final String EVENT_RETRY_ATTEMPT_KEY = "retryAttempt";
+    private static final String EVENT_INIT_DURATION_KEY = "initDuration";
+    private static final String EVENT_OPERATION_KEY = "operation";
+    private static final String EVENT_DURATION_KEY = "duration";
+
+    // event data keys
+    private static final String EVENT_DATA_PERCENT_PLAYED_KEY = "percentPlayed";
+    private static final String EVENT_DATA_FULLY_WATCHED_KEY = "fullyWatched";
+
+    // number of event records kept for reuse
+    private static final int EVENT_POOL_SIZE = 16;
+
+    // ad state per ad type, indexed by CoronaAdType.ordinal()
+    private static final CoronaAdTypeState[] adTypeStates = new CoronaAdTypeState[CoronaAdType.values().length];
+
+    static {
+        for (CoronaAdType adType : CoronaAdType.values()) {
+            adTypeStates[adType.ordinal()] = new CoronaAdTypeState(adType);
+        }
+    }
+
+    // saved objects (sdk, user id, etc)
+    private static volatile AppLovinSdk userSdk = null;
+    private static volatile boolean isSdkInitPending = false; // init() called, sdk not ready yet
+    private static volatile String activeSdkKey = null; // key userSdk was created with
+    private static volatile boolean preserveAds = false; // keep userSdk and the fullscreen ads when the runtime exits (init option 'preserveAds')
+    private static volatile String userId = null;
+
+    // loaded ad counts are kept in memory and only written to the preferences on suspend/exit
+    private static volatile boolean adCountsRestored = false;
+    private static final AtomicBoolean adCountsChanged = new AtomicBoolean(false);
+
+    // UI thread timing (init option 'perfWarningThreshold', 0 = no perfWarning events)
+    private static final int SLOW_UI_OPERATION_COUNT = 8;
+    private static volatile long perfWarningThresholdMs = 0;
+
+    // maximum number of calls kept for replay while the sdk is initializing
+    private static final int MAX_PENDING_SDK_OPS = 16;
+
+    // reward outcomes of simulated rewarded videos (init option 'simulation')
+    private static final String SIMULATED_REWARD_VERIFIED = "verified";
+    private static final String SIMULATED_REWARD_OVER_QUOTA = "overQuota";
+    private static final String SIMULATED_REWARD_REJECTED = "rejected";
+    private static final String SIMULATED_REWARD_FAILED = "failed";
+    private static final List<String> SIMULATED_REWARD_OUTCOMES = Arrays.asList(
+            SIMULATED_REWARD_VERIFIED, SIMULATED_REWARD_OVER_QUOTA, SIMULATED_REWARD_REJECTED, SIMULATED_REWARD_FAILED);
+    private static final String SIMULATED_REWARD_OUTCOMES_HINT = "'. Valid values: " + SIMULATED_REWARD_OUTCOMES;
+
+    // maximum number of preloaded ads kept per fullscreen ad type
+    private static final int MAX_POOL_SIZE = 4;
+    private static final int LOW_RAM_MAX_POOL_SIZE = 1; // on isLowRamDevice() devices
+    private static volatile int maxPoolSize = MAX_POOL_SIZE;
+
+    // ads released under memory pressure are loaded again once no trim request came for this long
+    private static final long TRIM_RECOVERY_DELAY_MS = 30000;
+    private static volatile boolean isSuspended = false;
+
+    // load retries (init option 'maxLoadRetries')
+    private static final long LOAD_RETRY_BASE_DELAY_MS = 2000;
+    private static final long LOAD_RETRY_MAX_DELAY_MS = 60000;
+    private static volatile int maxLoadRetries = 0;
+    private static final Random loadRetryJitter = new Random();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // sdk creation and fullscreen ad loads, which need no views, run here instead of on the main thread.
+    // a single thread, so pool fills never run concurrently (package-private so tests can check its queue)
+    static final ThreadPoolExecutor backgroundExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "AppLovinPlugin");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    // preloaded fullscreen ads older than this are discarded and reloaded (init option 'adTtl', 0 = never)
+    private static volatile long adTtlMs = 0;
+
+    private static int coronaListener = CoronaLua.REFNIL;
+    private static CoronaRuntimeTaskDispatcher coronaRuntimeTaskDispatcher = null;
+
+    // batched event delivery (init option 'batchEvents')
+    // pending events form a linked stack (newest first) through CoronaEventRecord.next
+    private static volatile boolean batchEvents = false;
+    private final AtomicReference<CoronaEventRecord> pendingLuaEvents = new AtomicReference<>(null);
+    private final AtomicBoolean isLuaEventDrainScheduled = new AtomicBoolean(false);
+
+    // slowest UI thread runnables posted by the plugin
+    private final CoronaSlowOperationLog slowUiOperations = new CoronaSlowOperationLog(SLOW_UI_OPERATION_COUNT);
+
+    // recycled event records
+    private final CoronaEventRecord[] freeLuaEvents = new CoronaEventRecord[EVENT_POOL_SIZE];
+    private int freeLuaEventCount = 0;
+
+    // runnables of calls made before the sdk was ready, replayed in order on the main thread once it is.
+    // guarded by its own lock
+    private final List<CoronaTimedRunnable> pendingSdkOps = new ArrayList<>();
+    private boolean isReplayingSdkOps = false;       // guarded by pendingSdkOps, later calls queue behind the replay
+    private CoronaTimedRunnable replayingSdkOp = null; // guarded by pendingSdkOps
+
+    // loads requested while the runtime is suspended, started in order on resume (main thread).
+    // guarded by its own lock
+    private final List<CoronaTimedRunnable> deferredLoads = new ArrayList<>();
+
+    // where fullscreen ads are loaded from and shown with (see setAdProvider)
+    private volatile CoronaAdProvider adProvider = new CoronaAppLovinAdProvider();
+
+    private final CoronaAppLovinDelegate applovinInterstitialDelegate = new CoronaAppLovinDelegate(CoronaAdType.INTERSTITIAL);
+    private final CoronaAppLovinDelegate applovinRewardedDelegate = new CoronaAppLovinDelegate(CoronaAdType.REWARDEDVIDEO);
+    private final CoronaAppLovinDelegate applovinBannerDelegate = new CoronaAppLovinDelegate(CoronaAdType.BANNER);
+
+    // banner views kept for reuse and the callbacks that drop them under memory pressure (main thread only)
+    private final CoronaBannerViewPool bannerViewPool = new CoronaBannerViewPool();
+    private final CoronaComponentCallbacks componentCallbacks = new CoronaComponentCallbacks();
+    private boolean componentCallbacksRegistered = false;
+    private AppLovinAdSize trimmedBannerSize = null; // banner released under memory pressure, reloaded on recovery
+
+    // display metrics used to place banners, cached until the configuration changes.
+    // only computed on the main thread
+    private volatile boolean displayMetricsValid = false;
+    private double yRatio = 1.0;
+    private int orientedDisplayHeight = 0;
+
+    // binary journal of the Lua events (init option 'eventJournalSize', null when off)
+    private static final String JOURNAL_FILE_NAME = "applovin_events.journal";
+    private static final String JOURNAL_LOG_CONTEXT = "eventJournal";
+    private static final int MAX_JOURNAL_SIZE_KB = 1024;
+    private volatile CoronaEventJournal eventJournal = null;
+
+    // the most recent log messages and Lua events (see applovin.getDiagnosticLog())
+    private final CoronaDiagnosticLog diagnosticLog = new CoronaDiagnosticLog(DIAGNOSTIC_LOG_SIZE);
+
+    // ----------------------------------------------------------------------------------
+    // Helper classes to keep track of information not available in the SDK base classes
+    // ----------------------------------------------------------------------------------
+
+    private enum CoronaAdType {
+        INTERSTITIAL(TYPE_INTERSTITIAL),
+        REWARDEDVIDEO(TYPE_REWARDEDVIDEO),
+        BANNER(TYPE_BANNER);
+
+        final String typeName;
+
+        CoronaAdType(String typeName) {
+            this.typeName = typeName;
+        }
+
+        // returns null for invalid ad types
+        static CoronaAdType fromTypeName(String typeName) {
+            for (CoronaAdType adType : values()) {
+                if (adType.typeName.equals(typeName)) {
+                    return adType;
+                }
+            }
+
+            return null;
+        }
+    }
+
+    private enum CoronaAdState {
+        IDLE,       // nothing loaded or loading
+        LOADING,    // waiting for the SDK to deliver an ad
+        READY,      // an ad can be shown
+        SHOWING,    // an ad is on screen and no other ad is ready
+        EXPIRED     // held ads were discarded and have to be loaded again
+    }
+
+    // the calls the plugin makes to create the sdk and banner views, to load banners and to load and show fullscreen ads.
+    // results are reported through the AppLovin listener interfaces, so a stand-in provider can drive
+    // the same load/show flows and delegate callbacks as the SDK does, without a device or network
+    interface CoronaAdProvider {
+        // called on the background executor
+        AppLovinSdk createSdk(String sdkKey, boolean verboseLogging, Context context);
+
+        // called on the background executor, the listener is called on the main thread once the sdk is ready
+        void initializeSdk(AppLovinSdk sdk, AppLovinSdk.SdkInitializationListener listener);
+
+        // called on the background executor
+        void loadInterstitial(AppLovinSdk sdk, AppLovinAdLoadListener listener);
+
+        // called on the background executor
+        AppLovinIncentivizedInterstitial createRewarded(AppLovinSdk sdk);
+
+        // called on the background executor
+        void preloadRewarded(AppLovinIncentivizedInterstitial rewardedAd, AppLovinAdLoadListener listener);
+
+        // called on the UI thread, the listeners get the callbacks of the shown ad
+        void showInterstitial(CoronaActivity coronaActivity, AppLovinSdk sdk, AppLovinAd ad, AppLovinAdDisplayListener displayListener,
+                              AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdClickListener clickListener);
+
+        // called on the UI thread, placement may be null
+        void showRewarded(CoronaActivity coronaActivity, AppLovinIncentivizedInterstitial rewardedAd, String placement, AppLovinAdRewardListener rewardListener,
+                          AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdDisplayListener displayListener, AppLovinAdClickListener clickListener);
+
+        // called on the UI thread
+        AppLovinAdView createBannerView(AppLovinSdk sdk, AppLovinAdSize adSize, CoronaActivity coronaActivity);
+
+        // called on the UI thread, listener is the view's load listener
+        void loadBanner(AppLovinAdView bannerAd, AppLovinAdLoadListener listener);
+    }
+
+    private static class CoronaAdStatus {
+        AppLovinAd ad; // null for simulated ads
+        boolean isLoaded = true;
+        CoronaRewardedSlot rewardedSlot; // rewarded instance holding the ad (rewarded video only)
+        final long loadTime; // SystemClock.elapsedRealtime() when the ad was received
+
+        CoronaAdStatus(AppLovinAd ad, CoronaRewardedSlot rewardedSlot) {
+            this.ad = ad;
+            this.rewardedSlot = rewardedSlot;
+            this.loadTime = SystemClock.elapsedRealtime();
+        }
+
+        boolean isExpired(long now, long ttl) {
+            return (ttl > 0) && (now - loadTime >= ttl);
+        }
+
+        void dealloc() {
+            this.ad = null;
+            this.rewardedSlot = null;
+            this.isLoaded = false;
+        }
+    }
+
+    // preloaded fullscreen ads (interstitial / rewarded video), served oldest first
+    private static class CoronaAdPool {
+        private final ConcurrentLinkedQueue<CoronaAdStatus> readyAds = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger readyAdCount = new AtomicInteger(0);
+        // each rewarded instance can only hold one preloaded ad, so the pool keeps one instance per slot
+        private final List<CoronaRewardedSlot> rewardedSlots = new CopyOnWriteArrayList<>();
+        private final ConcurrentLinkedQueue<CoronaRewardedSlot> idleRewardedSlots = new ConcurrentLinkedQueue<>();
+        private volatile int poolSize = 1;
+        private volatile long newestLoadTime = 0; // the newest ad is served last, so it's in the pool while the pool isn't empty
+
+        void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        int getPoolSize() {
+            return poolSize;
+        }
+
+        int getReadyAdCount() {
+            return readyAdCount.get();
+        }
+
+        long getNewestLoadTime() {
+            return newestLoadTime;
+        }
+
+        void addReadyAd(CoronaAdStatus adStatus) {
+            newestLoadTime = adStatus.loadTime;
+            readyAds.offer(adStatus);
+            readyAdCount.incrementAndGet();
+        }
+
+        CoronaAdStatus peekReadyAd() {
+            return readyAds.peek();
+        }
+
+        boolean removeReadyAd(CoronaAdStatus adStatus) {
+            if (readyAds.remove(adStatus)) {
+                readyAdCount.decrementAndGet();
+                return true;
+            }
+
+            return false;
+        }
+
+        // remove the oldest ready ad from the pool
+        CoronaAdStatus pollReadyAd() {
+            CoronaAdStatus adStatus = readyAds.poll();
+            if (adStatus != null) {
+                readyAdCount.decrementAndGet();
+            }
+
+            return adStatus;
+        }
+
+        List<CoronaRewardedSlot> getRewardedSlots() {
+            return rewardedSlots;
+        }
+
+        void addRewardedSlot(CoronaRewardedSlot rewardedSlot) {
+            rewardedSlots.add(rewardedSlot);
+        }
+
+        CoronaRewardedSlot pollIdleRewardedSlot() {
+            return idleRewardedSlots.poll();
+        }
+
+        // forget a rewarded instance, eg. one holding an expired ad
+        void removeRewardedSlot(CoronaRewardedSlot rewardedSlot) {
+            rewardedSlots.remove(rewardedSlot);
+            idleRewardedSlots.remove(rewardedSlot);
+        }
+
+        // called on the UI thread only, instances removed meanwhile stay removed
+        void releaseRewardedSlot(CoronaRewardedSlot rewardedSlot) {
+            if (rewardedSlot != null && rewardedSlots.contains(rewardedSlot) && !idleRewardedSlots.contains(rewardedSlot)) {
+                idleRewardedSlots.offer(rewardedSlot);
+            }
+        }
+
+        void dealloc() {
+            CoronaAdStatus adStatus;
+            while ((adStatus = pollReadyAd()) != null) {
+                adStatus.dealloc();
+            }
+            rewardedSlots.clear();
+            idleRewardedSlots.clear();
+        }
+    }
+
+    // everything the plugin keeps for one ad type.
+    // the state is derived from the counters below and published under the object's lock, so readers on
+    // any thread (eg. isLoaded() on the Lua thread) only need a single volatile read.
+    private static class CoronaAdTypeState {
+        final CoronaAdType adType;
+        final CoronaAdPool adPool; // null for banners
+
+        private final AtomicReference<CoronaAdState> state = new AtomicReference<>(CoronaAdState.IDLE);
+        private final AtomicInteger pendingLoads = new AtomicInteger(0);
+        final AtomicLong loadedAdCount = new AtomicLong(0); // lifetime count, persisted in the preferences
+        final AtomicInteger loadRetryCount = new AtomicInteger(0); // consecutive retries after failed loads
+        final CoronaAdMetrics metrics = new CoronaAdMetrics();
+        volatile boolean autoReload = false; // load the next ad as soon as one is shown (fullscreen only)
+        volatile boolean isTrimmed = false;  // ads were released under memory pressure, reload on recovery (fullscreen only)
+        private volatile boolean isShowing = false;
+        private volatile boolean isExpired = false;
+        volatile String showPlacement = null; // placement passed to show(), recorded in the event journal until hidden
+
+        // banner only
+        volatile AppLovinAdView bannerAd = null;
+        volatile AppLovinAdSize bannerAdSize = null;
+        volatile CoronaAdStatus bannerStatus = null;
+        volatile CoronaBannerBuffer bannerBuffer = null; // replacement loading off-screen (load option 'doubleBuffer')
+
+        // interstitial only
+        volatile AppLovinInterstitialAdDialog interstitialAd = null;
+
+        // rewarded video only
+        volatile CoronaRewardedSlot showingRewardedSlot = null; // instance of the ad on screen, it can't preload until the ad has been hidden
+
+        CoronaAdTypeState(CoronaAdType adType) {
+            this.adType = adType;
+            this.adPool = (adType == CoronaAdType.BANNER) ? null : new CoronaAdPool();
+        }
+
+        CoronaAdState getState() {
+            return state.get();
+        }
+
+        boolean isLoaded() {
+            CoronaAdState currentState = state.get();
+            if (adType == CoronaAdType.BANNER) {
+                // a visible banner counts as loaded
+                return (currentState == CoronaAdState.READY) || (currentState == CoronaAdState.SHOWING);
+            }
+
+            // a pool holding only expired ads isn't loaded, even before the expired ads have been dropped
+            long ttl = adTtlMs;
+            return (currentState == CoronaAdState.READY) && ((ttl <= 0) || (SystemClock.elapsedRealtime() - adPool.getNewestLoadTime() < ttl));
+        }
+
+        boolean isExpired() {
+            return isExpired;
+        }
+
+        int getPendingLoads() {
+            return pendingLoads.get();
+        }
+
+        // number of loads needed to fill the pool of a fullscreen ad type
+        int getMissingAdCount() {
+            if (adPool == null) {
+                return 0;
+            }
+
+            return adPool.getPoolSize() - adPool.getReadyAdCount() - pendingLoads.get();
+        }
+
+        private int getReadyAdCount() {
+            if (adPool != null) {
+                return adPool.getReadyAdCount();
+            }
+
+            // simulated banners have no ad, the status is loaded until it's deallocated
+            CoronaAdStatus adStatus = bannerStatus;
+            return ((adStatus != null) && adStatus.isLoaded) ? 1 : 0;
+        }
+
+        private CoronaAdState deriveState() {
+            boolean isReady = getReadyAdCount() > 0;
+
+            // a visible banner takes precedence over a refreshed one, a ready fullscreen ad over a showing one
+            if (adType == CoronaAdType.BANNER) {
+                if (isShowing) {
+                    return CoronaAdState.SHOWING;
+                } else if (isReady) {
+                    return CoronaAdState.READY;
+                }
+            } else {
+                if (isReady) {
+                    return CoronaAdState.READY;
+                } else if (isShowing) {
+                    return CoronaAdState.SHOWING;
+                }
+            }
+
+            if (pendingLoads.get() > 0) {
+                return CoronaAdState.LOADING;
+            } else if (isExpired) {
+                return CoronaAdState.EXPIRED;
+            }
+
+            return CoronaAdState.IDLE;
+        }
+
+        // must be called after every change to the fields the state is derived from. deriving and publishing
+        // under the lock means the last publisher has seen every change before it, so a stale state derived
+        // by a slower thread can't overwrite a newer one
+        synchronized CoronaAdState publishState() {
+            CoronaAdState newState = deriveState();
+            state.set(newState);
+            return newState;
+        }
+
+        void loadStarted() {
+            metrics.loadStarted(SystemClock.elapsedRealtime());
+            isExpired = false;
+            pendingLoads.incrementAndGet();
+            publishState();
+        }
+
+        void loadFinished(CoronaAdStatus adStatus) {
+            long loadStartTime = metrics.pollLoadStartTime();
+            if ((adStatus != null) && (loadStartTime >= 0)) {
+                metrics.loadLatency.record(SystemClock.elapsedRealtime() - loadStartTime);
+            }
+
+            // never go below zero, banners refresh without a pending load
+            int pending;
+            do {
+                pending = pendingLoads.get();
+            } while ((pending > 0) && !pendingLoads.compareAndSet(pending, pending - 1));
+
+            if (adStatus != null) {
+                if (adPool != null) {
+                    adPool.addReadyAd(adStatus);
+                } else {
+                    bannerStatus = adStatus;
+                }
+            }
+            publishState();
+        }
+
+        void setShowing(boolean isShowing) {
+            this.isShowing = isShowing;
+            publishState();
+        }
+
+        // discard the pooled ads older than the ad TTL, returns the number of ads discarded (UI thread only)
+        int dropExpiredAds(long now) {
+            long ttl = adTtlMs;
+            if ((adPool == null) || (ttl <= 0)) {
+                return 0;
+            }
+
+            int droppedAdCount = 0;
+            CoronaAdStatus adStatus;
+            while (((adStatus = adPool.peekReadyAd()) != null) && adStatus.isExpired(now, ttl)) {
+                if (discardReadyAd(adStatus)) {
+                    droppedAdCount++;
+                }
+            }
+
+            if (droppedAdCount > 0) {
+                publishState();
+            }
+
+            return droppedAdCount;
+        }
+
+        // discard the oldest pooled ads until at most keepCount are left, returns the number of ads discarded (UI thread only)
+        int trimReadyAds(int keepCount) {
+            if (adPool == null) {
+                return 0;
+            }
+
+            int droppedAdCount = 0;
+            CoronaAdStatus adStatus;
+            while ((adPool.getReadyAdCount() > keepCount) && ((adStatus = adPool.peekReadyAd()) != null)) {
+                if (discardReadyAd(adStatus)) {
+                    droppedAdCount++;
+                }
+            }
+
+            if (droppedAdCount > 0) {
+                publishState();
+            }
+
+            return droppedAdCount;
+        }
+
+        private boolean discardReadyAd(CoronaAdStatus adStatus) {
+            if (!adPool.removeReadyAd(adStatus)) {
+                return false;
+            }
+
+            // a rewarded instance keeps its ad cached, so it's replaced rather than preloaded again
+            if (adStatus.rewardedSlot != null) {
+                adPool.removeRewardedSlot(adStatus.rewardedSlot);
+            }
+            adStatus.dealloc();
+            return true;
+        }
+
+        // make a banner loaded off-screen the current one
+        void replaceBanner(AppLovinAdView bannerAd, AppLovinAdSize bannerAdSize, boolean isShowing) {
+            CoronaAdStatus adStatus = bannerStatus;
+            if (adStatus != null) {
+                adStatus.dealloc();
+            }
+            bannerStatus = null;
+            this.bannerAd = bannerAd;
+            this.bannerAdSize = bannerAdSize;
+            this.isShowing = isShowing;
+            publishState();
+        }
+
+        // remove the displayed banner
+        void clearBanner() {
+            CoronaAdStatus adStatus = bannerStatus;
+            if (adStatus != null) {
+                adStatus.dealloc();
+            }
+            bannerStatus = null;
+            bannerAd = null;
+            bannerAdSize = null;
+            isShowing = false;
+            pendingLoads.set(0);
+            metrics.clearLoadStartTimes();
+            publishState();
+        }
+
+        // discard all held ads
+        void expire() {
+            if (adPool != null) {
+                adPool.dealloc();
+            }
+            CoronaAdStatus adStatus = bannerStatus;
+            if (adStatus != null) {
+                adStatus.dealloc();
+            }
+            bannerStatus = null;
+            bannerAd = null;
+            bannerAdSize = null;
+            bannerBuffer = null;
+            interstitialAd = null;
+            showingRewardedSlot = null;
+            pendingLoads.set(0);
+            metrics.clearLoadStartTimes();
+            isShowing = false;
+            isExpired = true;
+            isTrimmed = false;
+            publishState();
+        }
+    }
+
+    // latency histogram with fixed buckets, recording doesn't allocate
+    private static class CoronaLatencyHistogram {
+        // upper bounds of the buckets in ms, the last bucket holds everything above
+        static final long[] BUCKET_LIMITS_MS = {100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+        private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_LIMITS_MS.length + 1);
+        private final AtomicLong count = new AtomicLong(0);
+        private final AtomicLong totalMs = new AtomicLong(0);
+        private final AtomicLong maxMs = new AtomicLong(0);
+
+        void record(long latencyMs) {
+            int bucket = 0;
+            while ((bucket < BUCKET_LIMITS_MS.length) && (latencyMs > BUCKET_LIMITS_MS[bucket])) {
+                bucket++;
+            }
+            bucketCounts.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalMs.addAndGet(latencyMs);
+
+            long max;
+            do {
+                max = maxMs.get();
+            } while ((latencyMs > max) && !maxMs.compareAndSet(max, latencyMs));
+        }
+
+        // push { count, meanMs, maxMs, buckets = { { upperMs, count }, ... } }
+        void pushSnapshot(LuaState L) {
+            long snapshotCount = count.get();
+
+            L.newTable(0, 4);
+            L.pushNumber(snapshotCount);
+            L.setField(-2, "count");
+            L.pushNumber((snapshotCount > 0) ? ((double) totalMs.get() / snapshotCount) : 0);
+            L.setField(-2, "meanMs");
+            L.pushNumber(maxMs.get());
+            L.setField(-2, "maxMs");
+
+            L.newTable(bucketCounts.length(), 0);
+            for (int i = 0; i < bucketCounts.length(); i++) {
+                L.newTable(0, 2);
+                L.pushNumber((i < BUCKET_LIMITS_MS.length) ? BUCKET_LIMITS_MS[i] : Double.POSITIVE_INFINITY);
+                L.setField(-2, "upperMs");
+                L.pushNumber(bucketCounts.get(i));
+                L.setField(-2, "count");
+                L.rawSet(-2, i + 1);
+            }
+            L.setField(-2, "buckets");
+        }
+    }
+
+    // load/show instrumentation for one ad type (see applovin.getMetrics())
+    private static class CoronaAdMetrics {
+        // error codes counted separately, everything else is counted as 'other'
+        private static final int[] ERROR_CODES = {
+                AppLovinErrorCodes.NO_FILL,
+                AppLovinErrorCodes.FETCH_AD_TIMEOUT,
+                AppLovinErrorCodes.NO_NETWORK,
+                AppLovinErrorCodes.UNABLE_TO_RENDER_AD,
+                AppLovinErrorCodes.UNSPECIFIED_ERROR,
+                AppLovinErrorCodes.UNABLE_TO_PRECACHE_IMAGE_RESOURCES,
+                AppLovinErrorCodes.UNABLE_TO_PRECACHE_VIDEO_RESOURCES,
+                AppLovinErrorCodes.UNABLE_TO_PRECACHE_RESOURCES,
+                AppLovinErrorCodes.INCENTIVIZED_NO_AD_PRELOADED,
+                AppLovinErrorCodes.INCENTIVIZED_UNKNOWN_SERVER_ERROR,
+                AppLovinErrorCodes.INCENTIVIZED_SERVER_TIMEOUT,
+                AppLovinErrorCodes.INCENTIVIZED_USER_CLOSED_VIDEO,
+                AppLovinErrorCodes.INVALID_URL
+        };
+
+        final CoronaLatencyHistogram loadLatency = new CoronaLatencyHistogram();  // load request -> ad received
+        final CoronaLatencyHistogram showLatency = new CoronaLatencyHistogram();  // applovin.show() -> displayed
+        private final ConcurrentHashMap<String, CoronaLatencyHistogram> placementShowLatency = new ConcurrentHashMap<>();
+
+        final AtomicLong loadRequests = new AtomicLong(0);
+        final AtomicLong loadsSucceeded = new AtomicLong(0);
+        final AtomicLong loadsFailed = new AtomicLong(0);
+        private final AtomicLongArray errorCounts = new AtomicLongArray(ERROR_CODES.length + 1);
+
+        // start times of the pending loads, oldest first. loads of one ad type finish roughly in order
+        private final long[] loadStartTimes = new long[MAX_POOL_SIZE + 2];
+        private int loadStartHead = 0;
+        private int loadStartCount = 0;
+
+        synchronized void loadStarted(long now) {
+            loadRequests.incrementAndGet();
+
+            if (loadStartCount == loadStartTimes.length) { // drop the oldest
+                loadStartHead = (loadStartHead + 1) % loadStartTimes.length;
+                loadStartCount--;
+            }
+            loadStartTimes[(loadStartHead + loadStartCount) % loadStartTimes.length] = now;
+            loadStartCount++;
+        }
+
+        // returns -1 if there is no pending load
+        synchronized long pollLoadStartTime() {
+            if (loadStartCount == 0) {
+                return -1;
+            }
+
+            long startTime = loadStartTimes[loadStartHead];
+            loadStartHead = (loadStartHead + 1) % loadStartTimes.length;
+            loadStartCount--;
+
+            return startTime;
+        }
+
+        synchronized void clearLoadStartTimes() {
+            loadStartHead = 0;
+            loadStartCount = 0;
+        }
+
+        void loadFailed(int errorCode) {
+            loadsFailed.incrementAndGet();
+
+            int index = 0;
+            while ((index < ERROR_CODES.length) && (ERROR_CODES[index] != errorCode)) {
+                index++;
+            }
+            errorCounts.incrementAndGet(index);
+        }
+
+        void showCompleted(String placement, long latencyMs) {
+            showLatency.record(latencyMs);
+
+            if (placement != null) {
+                CoronaLatencyHistogram histogram = placementShowLatency.get(placement);
+                if (histogram == null) { // first show for this placement
+                    CoronaLatencyHistogram newHistogram = new CoronaLatencyHistogram();
+                    histogram = placementShowLatency.putIfAbsent(placement, newHistogram);
+                    if (histogram == null) {
+                        histogram = newHistogram;
+                    }
+                }
+                histogram.record(latencyMs);
+            }
+        }
+
+        void pushSnapshot(LuaState L) {
+            long succeeded = loadsSucceeded.get();
+            long failed = loadsFailed.get();
+
+            L.newTable(0, 9);
+            L.pushNumber(loadRequests.get());
+            L.setField(-2, "loadRequests");
+            L.pushNumber(succeeded);
+            L.setField(-2, "loadsSucceeded");
+            L.pushNumber(failed);
+            L.setField(-2, "loadsFailed");
+            L.pushNumber(((succeeded + failed) > 0) ? ((double) succeeded / (succeeded + failed)) : 0);
+            L.setField(-2, "fillRate");
+
+            loadLatency.pushSnapshot(L);
+            L.setField(-2, "loadLatency");
+            showLatency.pushSnapshot(L);
+            L.setField(-2, "showLatency");
+
+            L.newTable(0, placementShowLatency.size());
+            for (Map.Entry<String, CoronaLatencyHistogram> entry : placementShowLatency.entrySet()) {
+                entry.getValue().pushSnapshot(L);
+                L.setField(-2, entry.getKey());
+            }
+            L.setField(-2, "placements");
+
+            // error code -> count, only codes that occurred
+            L.newTable();
+            for (int i = 0; i < ERROR_CODES.length; i++) {
+                long errorCount = errorCounts.get(i);
+                if (errorCount > 0) {
+                    L.pushNumber(errorCount);
+                    L.rawSet(-2, ERROR_CODES[i]);
+                }
+            }
+            L.setField(-2, "errorCodes");
+            L.pushNumber(errorCounts.get(ERROR_CODES.length));
+            L.setField(-2, "otherErrors");
+        }
+    }
+
+    // the slowest operations seen so far, kept in fixed arrays (replaces the fastest one when full)
+    private static class CoronaSlowOperationLog {
+        private final String[] operations;
+        private final String[] adTypes;
+        private final long[] durations;
+        private final long[] timestamps;
+        private int count = 0;
+
+        CoronaSlowOperationLog(int capacity) {
+            operations = new String[capacity];
+            adTypes = new String[capacity];
+            durations = new long[capacity];
+            timestamps = new long[capacity];
+        }
+
+        synchronized void record(String operation, String adType, long duration, long timestamp) {
+            int index = count;
+            if (count == durations.length) {
+                index = 0;
+                for (int i = 1; i < count; i++) {
+                    if (durations[i] < durations[index]) {
+                        index = i;
+                    }
+                }
+                if (durations[index] >= duration) {
+                    return;
+                }
+            } else {
+                count++;
+            }
+
+            operations[index] = operation;
+            adTypes[index] = adType;
+            durations[index] = duration;
+            timestamps[index] = timestamp;
+        }
+
+        // push an array of { operation, type, duration, time }, slowest first
+        synchronized void pushSnapshot(LuaState L) {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Long.compare(durations[b], durations[a]);
+                }
+            });
+
+            L.newTable(count, 0);
+            for (int i = 0; i < count; i++) {
+                int index = order[i];
+                L.newTable(0, 4);
+                L.pushString(operations[index]);
+                L.setField(-2, EVENT_OPERATION_KEY);
+                if (adTypes[index] != null) {
+                    L.pushString(adTypes[index]);
+                    L.setField(-2, EVENT_TYPE_KEY);
+                }
+                L.pushNumber(durations[index]);
+                L.setField(-2, EVENT_DURATION_KEY);
+                L.pushNumber(timestamps[index]);
+                L.setField(-2, "time");
+                L.rawSet(-2, i + 1);
+            }
+        }
+    }
+
+    // loads and shows ads with the AppLovin SDK
+    private class CoronaAppLovinAdProvider implements CoronaAdProvider {
+        @Override
+        public AppLovinSdk createSdk(String sdkKey, boolean verboseLogging, Context context) {
+            AppLovinSdkSettings sdkSettings = new AppLovinSdkSettings(context);
+            sdkSettings.setVerboseLogging(verboseLogging);
+//            sdkSettings.setMuted(startMuted);
+
+            return AppLovinSdk.getInstance(sdkKey, sdkSettings, context);
+        }
+
+        @Override
+        public void initializeSdk(AppLovinSdk sdk, AppLovinSdk.SdkInitializationListener listener) {
+            sdk.initializeSdk(listener);
+        }
+
+        @Override
+        public void loadInterstitial(AppLovinSdk sdk, AppLovinAdLoadListener listener) {
+            sdk.getAdService().loadNextAd(AppLovinAdSize.INTERSTITIAL, listener);
+        }
+
+        @Override
+        public AppLovinIncentivizedInterstitial createRewarded(AppLovinSdk sdk) {
+            return AppLovinIncentivizedInterstitial.create(sdk);
+        }
+
+        @Override
+        public void preloadRewarded(AppLovinIncentivizedInterstitial rewardedAd, AppLovinAdLoadListener listener) {
+            rewardedAd.preload(listener);
+        }
+
+        @Override
+        public void showInterstitial(CoronaActivity coronaActivity, AppLovinSdk sdk, AppLovinAd ad, AppLovinAdDisplayListener displayListener,
+                                     AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdClickListener clickListener) {
+            CoronaAdTypeState adTypeState = getAdTypeState(CoronaAdType.INTERSTITIAL);
+
+            // initialize interstitial object
+            AppLovinInterstitialAdDialog interstitialAd = adTypeState.interstitialAd;
+            if (interstitialAd == null) {
+                interstitialAd = AppLovinInterstitialAd.create(sdk, coronaActivity);
+                interstitialAd.setAdLoadListener(applovinInterstitialDelegate);
+                interstitialAd.setAdDisplayListener(displayListener);
+                interstitialAd.setAdVideoPlaybackListener(playbackListener);
+                interstitialAd.setAdClickListener(clickListener);
+                adTypeState.interstitialAd = interstitialAd;
+            }
+
+            interstitialAd.showAndRender(ad);
+        }
+
+        @Override
+        public void showRewarded(CoronaActivity coronaActivity, AppLovinIncentivizedInterstitial rewardedAd, String placement, AppLovinAdRewardListener rewardListener,
+                                 AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdDisplayListener displayListener, AppLovinAdClickListener clickListener) {
+            if (placement != null) {
+                rewardedAd.show(coronaActivity, placement, rewardListener, playbackListener, displayListener, clickListener);
+            } else {
+                rewardedAd.show(coronaActivity, rewardListener, playbackListener, displayListener, clickListener);
+            }
+        }
+
+        @Override
+        public AppLovinAdView createBannerView(AppLovinSdk sdk, AppLovinAdSize adSize, CoronaActivity coronaActivity) {
+            return new AppLovinAdView(sdk, adSize, coronaActivity);
+        }
+
+        @Override
+        public void loadBanner(AppLovinAdView bannerAd, AppLovinAdLoadListener listener) {
+            bannerAd.loadNextAd();
+        }
+    }
+
+    // stand-in for the AppLovin SDK (init option 'simulation'). loads fill or fail with the configured rate,
+    // latency and error codes, shows play out the display / click / playback / reward / hidden
+    // callbacks, all posted to the main thread like the SDK's own callbacks. the sdk instance and the views
+    // are still created by the SDK, but its services aren't started
+    private class CoronaSimulatedAdProvider extends CoronaAppLovinAdProvider {
+        double fillRate = 1;
+        long minLatencyMs = 100;
+        long maxLatencyMs = 1000;
+        int[] errorCodes = {AppLovinErrorCodes.NO_FILL};
+        String rewardOutcome = SIMULATED_REWARD_VERIFIED;
+        double clickRate = 0;
+        long showDurationMs = 1000;
+        private final Random random = new Random();
+
+        // uniformly distributed between min and max latency
+        private long nextLatency() {
+            return minLatencyMs + (long) (random.nextDouble() * (maxLatencyMs - minLatencyMs));
+        }
+
+        private void simulateLoad(final AppLovinAdLoadListener listener) {
+            final boolean isFilled = random.nextDouble() < fillRate;
+            final int errorCode = errorCodes[random.nextInt(errorCodes.length)];
+
+            mainHandler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    if (isFilled) {
+                        listener.adReceived(null);
+                    } else {
+                        listener.failedToReceiveAd(errorCode);
+                    }
+                }
+            }, nextLatency());
+        }
+
+        // rewardListener is null for an interstitial
+        private void simulateShow(final AppLovinAdRewardListener rewardListener, final AppLovinAdVideoPlaybackListener playbackListener,
+                                  final AppLovinAdDisplayListener displayListener, final AppLovinAdClickListener clickListener) {
+            final boolean isRewarded = (rewardListener != null);
+            final boolean isClicked = random.nextDouble() < clickRate;
+
+            displayListener.adDisplayed(null);
+            if (isRewarded) {
+                playbackListener.videoPlaybackBegan(null);
+            }
+
+            mainHandler.postDelayed(new Runnable() {
+                @Override
+                public void run() {
+                    if (isClicked) {
+                        clickListener.adClicked(null);
+                    }
+
+                    if (isRewarded) {
+                        playbackListener.videoPlaybackEnded(null, 100, true);
+
+                        switch (rewardOutcome) {
+                            case SIMULATED_REWARD_VERIFIED:
+                                Map<String, String> response = new HashMap<>();
+                                response.put("currency", "coins");
+                                response.put("amount", "1");
+                                rewardListener.userRewardVerified(null, response);
+                                break;
+                            case SIMULATED_REWARD_OVER_QUOTA:
+                                rewardListener.userOverQuota(null, new HashMap<String, String>());
+                                break;
+                            case SIMULATED_REWARD_REJECTED:
+                                rewardListener.userRewardRejected(null, new HashMap<String, String>());
+                                break;
+                            case SIMULATED_REWARD_FAILED:
+                                rewardListener.validationRequestFailed(null, AppLovinErrorCodes.NO_NETWORK);
+                                break;
+                        }
+                    }
+
+                    displayListener.adHidden(null);
+                }
+            }, showDurationMs);
+        }
+
+        @Override
+        public void initializeSdk(AppLovinSdk sdk, final AppLovinSdk.SdkInitializationListener listener) {
+            // simulated ads don't need the sdk services, skip its initialization (and network access)
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onSdkInitialized(null);
+                }
+            });
+        }
+
+        @Override
+        public void loadInterstitial(AppLovinSdk sdk, AppLovinAdLoadListener listener) {
+            simulateLoad(listener);
+        }
+
+        @Override
+        public AppLovinIncentivizedInterstitial createRewarded(AppLovinSdk sdk) {
+            // only used as a slot handle, it never loads
+            return AppLovinIncentivizedInterstitial.create(sdk);
+        }
+
+        @Override
+        public void preloadRewarded(AppLovinIncentivizedInterstitial rewardedAd, AppLovinAdLoadListener listener) {
+            simulateLoad(listener);
+        }
+
+        @Override
+        public void showInterstitial(CoronaActivity coronaActivity, AppLovinSdk sdk, AppLovinAd ad, AppLovinAdDisplayListener displayListener,
+                                     AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdClickListener clickListener) {
+            simulateShow(null, playbackListener, displayListener, clickListener);
+        }
+
+        @Override
+        public void showRewarded(CoronaActivity coronaActivity, AppLovinIncentivizedInterstitial rewardedAd, String placement, AppLovinAdRewardListener rewardListener,
+                                 AppLovinAdVideoPlaybackListener playbackListener, AppLovinAdDisplayListener displayListener, AppLovinAdClickListener clickListener) {
+            simulateShow(rewardListener, playbackListener, displayListener, clickListener);
+        }
+
+        @Override
+        public void loadBanner(AppLovinAdView bannerAd, AppLovinAdLoadListener listener) {
+            // the view is created and placed as usual, it just stays empty
+            simulateLoad(listener);
+        }
+    }
+
+    // idle banner views, at most one per size, so loading a banner doesn't inflate a new WebView every time.
+    // only used on the main thread
+    private static class CoronaBannerViewPool {
+        private final Map<AppLovinAdSize, AppLovinAdView> idleViews = new HashMap<>();
+
+        // returns null if there is no idle view of the given size. the view stays paused until it's shown
+        AppLovinAdView obtain(AppLovinAdSize adSize) {
+            return idleViews.remove(adSize);
+        }
+
+        // the view may stay attached to the overlay (hidden), it stops refreshing until it's shown again
+        void release(AppLovinAdSize adSize, AppLovinAdView bannerAd) {
+            bannerAd.setVisibility(View.GONE);
+            bannerAd.pause();
+
+            AppLovinAdView oldBannerAd = idleViews.put(adSize, bannerAd);
+            if ((oldBannerAd != null) && (oldBannerAd != bannerAd)) {
+                destroyBannerView(oldBannerAd);
+            }
+        }
+
+        void destroyAll() {
+            for (AppLovinAdView bannerAd : idleViews.values()) {
+                destroyBannerView(bannerAd);
+            }
+            idleViews.clear();
+        }
+
+        // idle views that are not attached to the overlay
+        int getDetachedCount() {
+            int count = 0;
+            for (AppLovinAdView bannerAd : idleViews.values()) {
+                if (bannerAd.getParent() == null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    // releases ads and banner views when the system runs low on memory (see trimMemory()) and
+    // invalidates the cached display metrics when the configuration changes (called on the main thread)
+    private class CoronaComponentCallbacks implements ComponentCallbacks2 {
+        @Override
+        public void onTrimMemory(int level) {
+            if ((level == TRIM_MEMORY_RUNNING_CRITICAL) || (level >= TRIM_MEMORY_MODERATE)) {
+                trimMemory(true);
+            } else if ((level == TRIM_MEMORY_RUNNING_MODERATE) || (level == TRIM_MEMORY_RUNNING_LOW) || (level >= TRIM_MEMORY_BACKGROUND)) {
+                trimMemory(false);
+            }
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(true);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            displayMetricsValid = false;
+        }
+    }
+
+    // append-only journal of the Lua events in a memory-mapped file of fixed size. when the file is full it
+    // replaces the previous one (<name>.old), so the journal takes at most twice the file size on disk.
+    // record() only copies a few fields into a preallocated queue, the background executor writes the records.
+    //
+    // file format (big endian): a 16 byte header { int magic, int version, int recordSize, int reserved }
+    // followed by 32 byte records, the first record of kind 0 marks the end.
+    //   event:     byte kind (1), byte adType (CoronaAdType ordinal, -1 for none), byte phase (JOURNAL_PHASES index),
+    //              byte reserved, int errorCode, long wall clock time (ms), long SystemClock.elapsedRealtime() (ms),
+    //              int placement id (0 for none), int reserved
+    //   placement: byte kind (2), byte name length, short placement id, UTF-8 name (at most 28 bytes, cut between characters).
+    //              written before the first event with this placement in the file
+    private static class CoronaEventJournal {
+        static final int MAGIC = 0x414c4a31; // "ALJ1"
+        static final int VERSION = 1;
+        static final int HEADER_SIZE = 16;
+        static final int RECORD_SIZE = 32;
+        static final byte RECORD_END = 0;
+        static final byte RECORD_EVENT = 1;
+        static final byte RECORD_PLACEMENT = 2;
+        static final int MAX_PLACEMENT_BYTES = RECORD_SIZE - 4;
+        static final int MAX_PLACEMENTS = Short.MAX_VALUE;
+        static final int QUEUE_SIZE = 256;
+        static final int READ_BUFFER_SIZE = 4096;
+
+        private final LuaLoader plugin; // reports a journal that can't be written
+        final File file;
+        final File oldFile;
+        final int fileSize;
+
+        // records waiting to be written, guarded by queueLock
+        private final Object queueLock = new Object();
+        private final byte[] queuedAdTypes = new byte[QUEUE_SIZE];
+        private final byte[] queuedPhases = new byte[QUEUE_SIZE];
+        private final int[] queuedErrorCodes = new int[QUEUE_SIZE];
+        private final long[] queuedTimes = new long[QUEUE_SIZE];
+        private final long[] queuedElapsedTimes = new long[QUEUE_SIZE];
+        private final String[] queuedPlacements = new String[QUEUE_SIZE];
+        private int queueStart = 0;
+        private int queueCount = 0;
+        private final AtomicBoolean isWriteScheduled = new AtomicBoolean(false);
+        final AtomicLong droppedRecords = new AtomicLong(0); // the queue was full
+
+        // writer state (background executor only)
+        private FileChannel channel = null;
+        private MappedByteBuffer buffer = null;
+        private int writePosition = 0;
+        private final Map<String, Integer> placementIds = new HashMap<>();
+        private boolean isBroken = false; // the file couldn't be opened, records are dropped
+
+        CoronaEventJournal(LuaLoader plugin, File file, int fileSize) {
+            this.plugin = plugin;
+            this.file = file;
+            this.oldFile = new File(file.getPath() + ".old");
+            this.fileSize = fileSize;
+        }
+
+        // can be called on any thread
+        void record(int adType, int phase, int errorCode, String placement) {
+            synchronized (queueLock) {
+                if (queueCount == QUEUE_SIZE) {
+                    droppedRecords.incrementAndGet();
+                    return;
+                }
+
+                int index = (queueStart + queueCount) % QUEUE_SIZE;
+                queuedAdTypes[index] = (byte) adType;
+                queuedPhases[index] = (byte) phase;
+                queuedErrorCodes[index] = errorCode;
+                queuedTimes[index] = System.currentTimeMillis();
+                queuedElapsedTimes[index] = SystemClock.elapsedRealtime();
+                queuedPlacements[index] = placement;
+                queueCount++;
+            }
+
+            if (isWriteScheduled.compareAndSet(false, true)) {
+                backgroundExecutor.execute(writeTask);
+            }
+        }
+
+        private final Runnable writeTask = new Runnable() {
+            @Override
+            public void run() {
+                // clear the flag first so records queued while writing schedule another task
+                isWriteScheduled.set(false);
+
+                while (true) {
+                    byte adType;
+                    byte phase;
+                    int errorCode;
+                    long time;
+                    long elapsedTime;
+                    String placement;
+
+                    synchronized (queueLock) {
+                        if (queueCount == 0) {
+                            return;
+                        }
+
+                        adType = queuedAdTypes[queueStart];
+                        phase = queuedPhases[queueStart];
+                        errorCode = queuedErrorCodes[queueStart];
+                        time = queuedTimes[queueStart];
+                        elapsedTime = queuedElapsedTimes[queueStart];
+                        placement = queuedPlacements[queueStart];
+                        queuedPlacements[queueStart] = null;
+                        queueStart = (queueStart + 1) % QUEUE_SIZE;
+                        queueCount--;
+                    }
+
+                    write(adType, phase, errorCode, time, elapsedTime, placement);
+                }
+            }
+        };
+
+        private void write(byte adType, byte phase, int errorCode, long time, long elapsedTime, String placement) {
+            // room for a placement record and the event
+            if (!ensureCapacity(2 * RECORD_SIZE)) {
+                return;
+            }
+
+            int placementId = 0;
+            if (placement != null) {
+                Integer id = placementIds.get(placement);
+                if ((id == null) && (placementIds.size() < MAX_PLACEMENTS)) {
+                    id = placementIds.size() + 1;
+                    placementIds.put(placement, id);
+                    writePlacement(id, placement);
+                }
+                placementId = (id != null) ? id : 0;
+            }
+
+            // the kind goes in last, so a reader never sees a partially written record
+            int position = writePosition;
+            buffer.put(position + 1, adType);
+            buffer.put(position + 2, phase);
+            buffer.putInt(position + 4, errorCode);
+            buffer.putLong(position + 8, time);
+            buffer.putLong(position + 16, elapsedTime);
+            buffer.putInt(position + 24, placementId);
+            buffer.put(position, RECORD_EVENT);
+            writePosition += RECORD_SIZE;
+        }
+
+        private void writePlacement(int placementId, String placement) {
+            byte[] name = placement.getBytes(java.nio.charset.Charset.forName("UTF-8"));
+            int length = getUtf8PrefixLength(name, name.length, MAX_PLACEMENT_BYTES);
+
+            int position = writePosition;
+            buffer.put(position + 1, (byte) length);
+            buffer.putShort(position + 2, (short) placementId);
+            for (int i = 0; i < length; i++) {
+                buffer.put(position + 4 + i, name[i]);
+            }
+            buffer.put(position, RECORD_PLACEMENT);
+            writePosition += RECORD_SIZE;
+        }
+
+        // open the file on first use and rotate it when full. false if the journal can't be written
+        private boolean ensureCapacity(int size) {
+            if (isBroken) {
+                return false;
+            }
+
+            try {
+                if (buffer == null) {
+                    open();
+                }
+                if (writePosition + size > fileSize) {
+                    close();
+                    if (oldFile.exists() && !oldFile.delete()) {
+                        throw new IOException("Can't delete " + oldFile);
+                    }
+                    if (!file.renameTo(oldFile)) {
+                        throw new IOException("Can't rename " + file);
+                    }
+                    open();
+                }
+                return true;
+            } catch (IOException e) {
+                plugin.logMsg(LOG_INFO, JOURNAL_LOG_CONTEXT, "Event journal disabled: ", e.getMessage());
+                close();
+                isBroken = true;
+                return false;
+            }
+        }
+
+        // map the file, continuing after the last record of a journal written earlier
+        private void open() throws IOException {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            boolean isValid;
+            try {
+                isValid = (randomAccessFile.length() == fileSize) && (randomAccessFile.length() >= HEADER_SIZE)
+                        && (randomAccessFile.readInt() == MAGIC) && (randomAccessFile.readInt() == VERSION) && (randomAccessFile.readInt() == RECORD_SIZE);
+                if (!isValid) {
+                    // new file, older format or another journal size
+                    randomAccessFile.setLength(0);
+                }
+
+                channel = randomAccessFile.getChannel();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            } catch (IOException e) {
+                // closing the file closes its channel too
+                channel = null;
+                randomAccessFile.close();
+                throw e;
+            }
+            placementIds.clear();
+            writePosition = HEADER_SIZE;
+
+            if (!isValid) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, RECORD_SIZE);
+                return;
+            }
+
+            for (; writePosition + RECORD_SIZE <= fileSize; writePosition += RECORD_SIZE) {
+                byte kind = buffer.get(writePosition);
+                if (kind == RECORD_END) {
+                    break;
+                } else if (kind == RECORD_PLACEMENT) {
+                    placementIds.put(readPlacementName(buffer, writePosition), (int) buffer.getShort(writePosition + 2));
+                }
+            }
+        }
+
+        // flush and drop the records still coming in (background executor only)
+        void shutdown() {
+            close();
+            isBroken = true;
+        }
+
+        // flush and unmap (background executor only)
+        void close() {
+            if (buffer != null) {
+                buffer.force();
+                buffer = null;
+            }
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+                channel = null;
+            }
+        }
+
+        // journals written by earlier versions may hold names cut inside a character, those are cut before it
+        private static String readPlacementName(ByteBuffer buffer, int position) {
+            int length = Math.min(buffer.get(position + 1) & 0xff, MAX_PLACEMENT_BYTES);
+            byte[] name = new byte[length];
+            for (int i = 0; i < length; i++) {
+                name[i] = buffer.get(position + 4 + i);
+            }
+            return new String(name, 0, getUtf8PrefixLength(name, length, length), java.nio.charset.Charset.forName("UTF-8"));
+        }
+
+        // the length of the longest prefix of bytes[0, length) that fits in maxLength bytes and doesn't end
+        // inside a UTF-8 character
+        private static int getUtf8PrefixLength(byte[] bytes, int length, int maxLength) {
+            int prefixLength = Math.min(length, maxLength);
+            if (prefixLength == 0) {
+                return 0;
+            }
+
+            // the lead byte of the last character starting in the prefix
+            int lead = prefixLength - 1;
+            while ((lead > 0) && ((bytes[lead] & 0xc0) == 0x80)) {
+                lead--;
+            }
+
+            int leadByte = bytes[lead] & 0xff;
+            int charLength = (leadByte >= 0xf0) ? 4 : (leadByte >= 0xe0) ? 3 : (leadByte >= 0xc0) ? 2 : 1;
+            return (lead + charLength <= prefixLength) ? prefixLength : lead;
+        }
+
+        // decode the journal (previous file first) and push an array of
+        // { time, elapsedTime, type, phase [, errorCode] [, placement] }, oldest first.
+        // the files are streamed a record at a time, the oldest offset events are skipped and at most limit are pushed
+        static void pushRecords(LuaState L, File file, int offset, int limit) throws IOException {
+            L.newTable();
+            int count = 0;
+            int skippedCount = 0;
+            byte[] record = new byte[RECORD_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+
+            for (File journalFile : new File[]{new File(file.getPath() + ".old"), file}) {
+                if ((count >= limit) || !journalFile.exists()) {
+                    continue;
+                }
+
+                DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile), READ_BUFFER_SIZE));
+                try {
+                    boolean isValid;
+                    try {
+                        isValid = (input.readInt() == MAGIC) && (input.readInt() == VERSION) && (input.readInt() == RECORD_SIZE);
+                        input.readInt(); // reserved
+                    } catch (EOFException e) {
+                        isValid = false;
+                    }
+                    if (!isValid) {
+                        continue;
+                    }
+
+                    Map<Integer, String> placements = new HashMap<>();
+                    while (count < limit) {
+                        try {
+                            input.readFully(record);
+                        } catch (EOFException e) {
+                            break;
+                        }
+
+                        byte kind = record[0];
+                        if (kind == RECORD_END) {
+                            break;
+                        } else if (kind == RECORD_PLACEMENT) {
+                            placements.put((int) buffer.getShort(2), readPlacementName(buffer, 0));
+                        } else if (kind == RECORD_EVENT) {
+                            if (skippedCount < offset) {
+                                skippedCount++;
+                                continue;
+                            }
+
+                            int adType = record[1];
+                            int phase = record[2];
+                            int errorCode = buffer.getInt(4);
+                            String placement = placements.get(buffer.getInt(24));
+
+                            L.newTable(0, 6);
+                            L.pushNumber(buffer.getLong(8));
+                            L.setField(-2, "time");
+                            L.pushNumber(buffer.getLong(16));
+                            L.setField(-2, "elapsedTime");
+                            if ((adType >= 0) && (adType < CoronaAdType.values().length)) {
+                                L.pushString(CoronaAdType.values()[adType].typeName);
+                                L.setField(-2, "type");
+                            }
+                            if ((phase >= 0) && (phase < JOURNAL_PHASES.size())) {
+                                L.pushString(JOURNAL_PHASES.get(phase));
+                                L.setField(-2, "phase");
+                            }
+                            if (errorCode != 0) {
+                                L.pushInteger(errorCode);
+                                L.setField(-2, "errorCode");
+                            }
+                            if (placement != null) {
+                                L.pushString(placement);
+                                L.setField(-2, "placement");
+                            }
+                            L.rawSet(-2, ++count);
+                        }
+                    }
+                } finally {
+                    input.close();
+                }
+            }
+        }
+    }
+
+    // the last log messages and Lua events in a preallocated ring, oldest entries are overwritten.
+    // recording only stores references and numbers, so it's cheap enough to stay on
+    private static class CoronaDiagnosticLog {
+        private final long[] times;        // System.currentTimeMillis()
+        private final int[] levels;        // LOG_* of a message, LOG_NONE for an event
+        private final String[] contexts;   // context of a message, ad type of an event
+        private final String[] messages;   // message, or phase of an event
+        private final int[] errorCodes;    // error code of a failed load, 0 otherwise
+        private int nextIndex = 0;
+        private int count = 0;
+
+        CoronaDiagnosticLog(int capacity) {
+            times = new long[capacity];
+            levels = new int[capacity];
+            contexts = new String[capacity];
+            messages = new String[capacity];
+            errorCodes = new int[capacity];
+        }
+
+        synchronized void record(int level, String context, String message, int errorCode) {
+            times[nextIndex] = System.currentTimeMillis();
+            levels[nextIndex] = level;
+            contexts[nextIndex] = context;
+            messages[nextIndex] = message;
+            errorCodes[nextIndex] = errorCode;
+
+            nextIndex = (nextIndex + 1) % times.length;
+            if (count < times.length) {
+                count++;
+            }
+        }
+
+        // push an array of { time, level, context, message [, errorCode] }, oldest first.
+        // level is "event" for Lua events, with the ad type as context and the phase as message
+        synchronized void pushSnapshot(LuaState L) {
+            L.newTable(count, 0);
+
+            int firstIndex = (nextIndex - count + times.length) % times.length;
+            for (int i = 0; i < count; i++) {
+                int index = (firstIndex + i) % times.length;
+
+                L.newTable(0, 5);
+                L.pushNumber(times[index]);
+                L.setField(-2, "time");
+                L.pushString((levels[index] == LOG_NONE) ? "event" : LOG_LEVEL_NAMES.get(levels[index]));
+                L.setField(-2, "level");
+                if (contexts[index] != null) {
+                    L.pushString(contexts[index]);
+                    L.setField(-2, "context");
+                }
+                L.pushString(messages[index]);
+                L.setField(-2, "message");
+                if (errorCodes[index] != 0) {
+                    L.pushInteger(errorCodes[index]);
+                    L.setField(-2, "errorCode");
+                }
+                L.rawSet(-2, i + 1);
+            }
+        }
+    }
+
+    // adsRequest event with a fixed set of fields.
+    // records are pooled (see obtainLuaEvent) so dispatching events doesn't allocate in the steady state
+    private class CoronaEventRecord implements CoronaRuntimeTask {
+        String phase;
+        String type;
+        boolean isError;
+        String response;
+        int errorCode;      // failed loads only
+        int retryAttempt;   // failed loads only, 0 if no retry was scheduled
+        long duration;      // init: ms from applovin.init() until the sdk was ready, perfWarning: ms spent on the UI thread
+        String operation;   // perfWarning only
+
+        // event.data, depending on dataKind
+        int dataKind;
+        String dataString;
+        Map<?, ?> dataMap;
+        double percentPlayed;
+        boolean fullyWatched;
+
+        CoronaEventRecord next; // link in the batched event queue
+
+        CoronaEventRecord() {
+            reset();
+        }
+
+        void reset() {
+            this.phase = null;
+            this.type = null;
+            this.isError = false;
+            this.response = null;
+            this.errorCode = 0;
+            this.retryAttempt = 0;
+            this.duration = 0;
+            this.operation = null;
+            this.dataKind = EVENT_DATA_NONE;
+            this.dataString = null;
+            this.dataMap = null;
+            this.percentPlayed = 0;
+            this.fullyWatched = false;
+            this.next = null;
+        }
+
+        @Override
+        public void executeUsing(CoronaRuntime runtime) {
+            sendLuaEvent(runtime.getLuaState(), this);
+            recycleLuaEvent(this);
+        }
+    }
+
+    // -------------------------------------------------------
+    // Plugin lifecycle events
+    // -------------------------------------------------------
+
+    /**
+     * Called after the Corona runtime has been created and just before executing the "main.lua" file.
+     * <p>
+     * Warning! This method is not called on the main thread.
+     *
+     * @param runtime Reference to the CoronaRuntime object that has just been loaded/initialized.
+     *                Provides a LuaState object that allows the application to extend the Lua API.
+     */
+    @Override
+    public void onLoaded(CoronaRuntime runtime) {
+        // Note that this method will not be called the first time a Corona activity has been launched.
+        // This is because this listener cannot be added to the CoronaEnvironment until after
+        // this plugin has been required-in by Lua, which occurs after the onLoaded() event.
+        // However, this method will be called when a 2nd Corona activity has been created.
+        if (coronaRuntimeTaskDispatcher == null) {
+            coronaRuntimeTaskDispatcher = new CoronaRuntimeTaskDispatcher(runtime);
+
+            // initialize validation tables
+            validBannerSizes.add(BANNER_STANDARD);
+            validBannerSizes.add(BANNER_LEADER);
+            validBannerSizes.add(BANNER_MREC);
+
+            validBannerPositions.add(BANNER_ALIGN_TOP);
+            validBannerPositions.add(BANNER_ALIGN_CENTER);
+            validBannerPositions.add(BANNER_ALIGN_BOTTOM);
+        }
+    }
+
+    /**
+     * Called just after the Corona runtime has executed the "main.lua" file.
+     * <p>
+     * Warning! This method is not called on the main thread.
+     *
+     * @param runtime Reference to the CoronaRuntime object that has just been started.
+     */
+    @Override
+    public void onStarted(CoronaRuntime runtime) {
+    }
+
+    /**
+     * Called just after the Corona runtime has been suspended which pauses all rendering, audio, timers,
+     * and other Corona related operations. This can happen when another Android activity (ie: window) has
+     * been displayed, when the screen has been powered off, or when the screen lock is shown.
+     * <p>
+     * Warning! This method is not called on the main thread.
+     *
+     * @param runtime Reference to the CoronaRuntime object that has just been suspended.
+     */
+    @Override
+    public void onSuspended(CoronaRuntime runtime) {
+        synchronized (deferredLoads) {
+            isSuspended = true;
+        }
+        saveAdCounts();
+
+        // stop the banners from refreshing in the background
+        mainHandler.post(new CoronaTimedRunnable("suspend", null) {
+            @Override
+            void runTimed() {
+                CoronaAdTypeState bannerState = getAdTypeState(CoronaAdType.BANNER);
+                AppLovinAdView bannerAd = bannerState.bannerAd;
+                if (bannerAd != null) {
+                    bannerAd.pause();
+                }
+                CoronaBannerBuffer bannerBuffer = bannerState.bannerBuffer;
+                if (bannerBuffer != null) {
+                    bannerBuffer.bannerAd.pause();
+                }
+            }
+        });
+    }
+
+    /**
+     * Called just after the Corona runtime has been resumed after a suspend.
+     * <p>
+     * Warning! This method is not called on the main thread.
+     *
+     * @param runtime Reference to the CoronaRuntime object that has just been resumed.
+     */
+    @Override
+    public void onResumed(CoronaRuntime runtime) {
+        final CoronaTimedRunnable[] loads;
+        synchronized (deferredLoads) {
+            isSuspended = false;
+            loads = deferredLoads.toArray(new CoronaTimedRunnable[0]);
+            deferredLoads.clear();
+        }
+
+        mainHandler.post(new CoronaTimedRunnable("resume", null) {
+            @Override
+            void runTimed() {
+                // only the banner on screen refreshes, hidden banners and one loading off-screen
+                // stay paused until they are shown
+                AppLovinAdView bannerAd = getAdTypeState(CoronaAdType.BANNER).bannerAd;
+                if (isBannerViewOnScreen(bannerAd)) {
+                    bannerAd.resume();
+                }
+
+                // loads requested while suspended, in order
+                for (CoronaTimedRunnable load : loads) {
+                    load.run();
+                }
+
+                // reload what was released under memory pressure while the app was in the background
+                trimRecoveryRunnable.run();
+            }
+        });
+    }
+
+    /**
+     * Called just before the Corona runtime terminates.
+     * <p>
+     * This happens when the Corona activity is being destroyed which happens when the user presses the Back button
+     * on the activity, when the native.requestExit() method is called in Lua, or when the activity's finish()
+     * method is called. This does not mean that the application is exiting.
+     * <p>
+     * Warning! This method is not called on the main thread.
+     *
+     * @param runtime Reference to the CoronaRuntime object that is being terminated.
+     */
+    @Override
+    public void onExiting(CoronaRuntime runtime) {
+        saveAdCounts();
+
+        // destroy the banner views on the main thread, the current one included
+        final AppLovinAdView bannerAd = getAdTypeState(CoronaAdType.BANNER).bannerAd;
+        final CoronaBannerBuffer bannerBuffer = getAdTypeState(CoronaAdType.BANNER).bannerBuffer;
+        mainHandler.post(new CoronaTimedRunnable("exit", null) {
+            @Override
+            void runTimed() {
+                if (bannerAd != null) {
+                    destroyBannerView(bannerAd);
+                }
+                if (bannerBuffer != null) {
+                    destroyBannerView(bannerBuffer.bannerAd);
+                }
+                bannerViewPool.destroyAll();
+                synchronized (pendingSdkOps) {
+                    pendingSdkOps.clear();
+                    isReplayingSdkOps = false;
+                    replayingSdkOp = null;
+                }
+                synchronized (deferredLoads) {
+                    deferredLoads.clear();
+                }
+
+                if (componentCallbacksRegistered) {
+                    CoronaEnvironment.getApplicationContext().unregisterComponentCallbacks(componentCallbacks);
+                    componentCallbacksRegistered = false;
+                }
+
+                trimmedBannerSize = null;
+            }
+        });
+
+        // clear the saved ad objects. with the init option 'preserveAds' the sdk and the preloaded fullscreen ads
+        // are kept for the next runtime, unless they are simulated. activity bound objects are released either way
+        boolean keepAds = preserveAds && (userSdk != null) && !(adProvider instanceof CoronaSimulatedAdProvider);
+        for (CoronaAdTypeState adTypeState : adTypeStates) {
+            if (keepAds && (adTypeState.adPool != null)) {
+                adTypeState.interstitialAd = null;
+            } else {
+                adTypeState.expire();
+            }
+        }
+        if (!keepAds) {
+            userSdk = null;
+            activeSdkKey = null;
+        }
+        preserveAds = false;
+        isSdkInitPending = false;
+        userId = null;
+        displayMetricsValid = false;
+
+        // cancel scheduled load retries and expiry checks
+        for (CoronaAppLovinDelegate delegate : new CoronaAppLovinDelegate[]{applovinInterstitialDelegate, applovinRewardedDelegate, applovinBannerDelegate}) {
+            mainHandler.removeCallbacks(delegate.retryLoadRunnable);
+            mainHandler.removeCallbacks(delegate.adExpiryRunnable);
+        }
+        mainHandler.removeCallbacks(trimRecoveryRunnable);
+        synchronized (deferredLoads) {
+            isSuspended = false;
+        }
+        maxLoadRetries = 0;
+        adTtlMs = 0;
+        perfWarningThresholdMs = 0;
+        logLevel = LOG_WARNING;
+        setAdProvider(null);
+        setEventJournalSize(null, 0);
+
+        CoronaLua.deleteRef(runtime.getLuaState(), coronaListener);
+        coronaListener = CoronaLua.REFNIL;
+
+        batchEvents = false;
+        pendingLuaEvents.set(null);
+        isLuaEventDrainScheduled.set(false);
+
+        validBannerSizes.clear();
+        validBannerPositions.clear();
+
+        coronaRuntimeTaskDispatcher = null;
+    }
+
+    // --------------------------------------------------------------------------
+    // helper functions
+    // --------------------------------------------------------------------------
+
+    // log a message to the console and the diagnostic log.
+    // context names the Lua function or plugin part the message comes from
+    private void logMsg(int level, String context, String message) {
+        if (level > logLevel) {
+            return;
+        }
+
+        writeLogMsg(level, context, message);
+    }
+
+    // the detail is only appended to the message when the level is enabled
+    private void logMsg(int level, String context, String message, Object detail) {
+        if (level > logLevel) {
+            return;
+        }
+
+        writeLogMsg(level, context, message + detail);
+    }
+
+    private void logMsg(int level, String context, String message, long detail) {
+        if (level > logLevel) {
+            return;
+        }
+
+        writeLogMsg(level, context, message + detail);
+    }
+
+    // for a detail in the middle of the message, eg. "Invalid option '" key "'"
+    private void logMsg(int level, String context, String message, Object detail, String messageEnd) {
+        if (level > logLevel) {
+            return;
+        }
+
+        writeLogMsg(level, context, message + detail + messageEnd);
+    }
+
+    private void writeLogMsg(int level, String context, String message) {
+        Log.i(CORONA_TAG, LOG_PREFIXES[level] + context + ", " + message);
+        diagnosticLog.record(level, context, message, 0);
+    }
+
+    // return true if SDK is properly initialized
+    private boolean isSDKInitialized(String logContext) {
+        if (coronaListener == CoronaLua.REFNIL) {
+            logMsg(LOG_ERROR, logContext, "applovin.init() must be called before calling other API functions");
+            return false;
+        }
+
+        return true;
+    }
+
+    // read the saved ad counts once per process (counts then live in memory)
+    private void restoreAdCounts() {
+        CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+        if (adCountsRestored || (coronaActivity == null)) {
+            return;
+        }
+
+        SharedPreferences sharedPref = coronaActivity.getPreferences(Context.MODE_PRIVATE);
+        for (CoronaAdTypeState adTypeState : adTypeStates) {
+            adTypeState.loadedAdCount.addAndGet(sharedPref.getLong(adTypeState.adType.typeName, 0));
+        }
+        adCountsRestored = true;
+    }
+
+    // write changed ad counts in a single batch
+    private void saveAdCounts() {
+        CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+        if (!adCountsRestored || (coronaActivity == null) || !adCountsChanged.compareAndSet(true, false)) {
+            return;
+        }
+
+        SharedPreferences.Editor editor = coronaActivity.getPreferences(Context.MODE_PRIVATE).edit();
+        for (CoronaAdTypeState adTypeState : adTypeStates) {
+            editor.putLong(adTypeState.adType.typeName, adTypeState.loadedAdCount.get());
+        }
+        editor.apply();
+    }
+
+    private static CoronaAdTypeState getAdTypeState(CoronaAdType adType) {
+        return adTypeStates[adType.ordinal()];
+    }
+
+    // request enough fullscreen ads to fill the pool for the given ad type.
+    // can be called on any thread, the loads are started on the background executor
+    private void fillAdPool(final AppLovinSdk activeSdk, final CoronaAdType adType) {
+        final CoronaAdTypeState adTypeState = getAdTypeState(adType);
+        final CoronaAdPool adPool = adTypeState.adPool;
+        if (adPool == null) {
+            return;
+        }
+
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (userSdk != activeSdk) { // the runtime has exited in the meantime
+                    return;
+                }
+
+                CoronaAdProvider provider = adProvider;
+                int missingAdCount = adTypeState.getMissingAdCount();
+                logMsg(LOG_DEBUG, adType.typeName, "Ads requested to fill the pool: ", missingAdCount);
+
+                for (int i = 0; i < missingAdCount; i++) {
+                    if (adType == CoronaAdType.REWARDEDVIDEO) {
+                        CoronaRewardedSlot rewardedSlot = adPool.pollIdleRewardedSlot();
+
+                        // create another rewarded instance if all existing ones are busy
+                        if (rewardedSlot == null) {
+                            if (adPool.getRewardedSlots().size() >= adPool.getPoolSize()) {
+                                break;
+                            }
+
+                            rewardedSlot = new CoronaRewardedSlot(provider.createRewarded(activeSdk));
+                            String currentUserId = userId;
+                            if (currentUserId != null) {
+                                rewardedSlot.rewardedAd.setUserIdentifier(currentUserId);
+                            }
+                            adPool.addRewardedSlot(rewardedSlot);
+                        }
+
+                        adTypeState.loadStarted();
+                        provider.preloadRewarded(rewardedSlot.rewardedAd, rewardedSlot);
+                    } else { // interstitial, the dialog showing the ad is created by show()
+                        adTypeState.loadStarted();
+                        provider.loadInterstitial(activeSdk, applovinInterstitialDelegate);
+                    }
+                }
+            }
+        });
+    }
+
+    // run a plugin operation on the UI thread and measure how long it takes
+    private void runOnUiThreadTimed(CoronaActivity coronaActivity, String operation, String adType, final Runnable runnable) {
+        coronaActivity.runOnUiThread(new CoronaTimedRunnable(operation, adType) {
+            @Override
+            void runTimed() {
+                runnable.run();
+            }
+        });
+    }
+
+    // keep the time a plugin operation spent on the UI thread since startTime, and warn Lua if it was too long.
+    // an operation run by another one is recorded on its own as well
+    private void recordUiOperation(String operation, String adType, long startTime) {
+        long duration = SystemClock.elapsedRealtime() - startTime;
+
+        slowUiOperations.record(operation, adType, duration, System.currentTimeMillis());
+
+        long threshold = perfWarningThresholdMs;
+        if ((threshold > 0) && (duration >= threshold)) {
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_PERF_WARNING, adType);
+            coronaEvent.operation = operation;
+            coronaEvent.duration = duration;
+            dispatchLuaEvent(coronaEvent);
+        }
+    }
+
+    // a plugin operation that is timed when it runs on the UI thread (see recordUiOperation).
+    // runs on other threads, eg. fullscreen loads on the background executor, aren't timed
+    private abstract class CoronaTimedRunnable implements Runnable {
+        final String timedOperation;
+        final String timedAdType; // null if the operation isn't about one ad type
+
+        CoronaTimedRunnable(String operation, String adType) {
+            this.timedOperation = operation;
+            this.timedAdType = adType;
+        }
+
+        abstract void runTimed();
+
+        @Override
+        public final void run() {
+            if (Looper.myLooper() != Looper.getMainLooper()) {
+                runTimed();
+                return;
+            }
+
+            long startTime = SystemClock.elapsedRealtime();
+            runTimed();
+            recordUiOperation(timedOperation, timedAdType, startTime);
+        }
+    }
+
+    // keep a runnable to run once the sdk is ready and the calls queued before it have run.
+    // returns false if there is nothing to wait for (anymore), the caller should go ahead then
+    private boolean queueSdkOp(CoronaTimedRunnable sdkOp, String logContext) {
+        synchronized (pendingSdkOps) {
+            if ((!isSdkInitPending && !isReplayingSdkOps) || (sdkOp == replayingSdkOp)) {
+                return false;
+            }
+
+            if (pendingSdkOps.size() >= MAX_PENDING_SDK_OPS) {
+                logMsg(LOG_WARNING, logContext, "Too many calls made before the SDK was ready. Dropping the oldest.");
+                pendingSdkOps.remove(0);
+            }
+            pendingSdkOps.add(sdkOp);
+            return true;
+        }
+    }
+
+    // keep a load to start once the runtime is resumed.
+    // returns false if the runtime isn't suspended (anymore), the caller should go ahead then
+    private boolean deferLoad(CoronaTimedRunnable load, String logContext) {
+        synchronized (deferredLoads) {
+            if (!isSuspended) {
+                return false;
+            }
+
+            if (!deferredLoads.contains(load)) {
+                if (deferredLoads.size() >= MAX_PENDING_SDK_OPS) {
+                    logMsg(LOG_WARNING, logContext, "Too many loads requested while suspended. Dropping the oldest.");
+                    deferredLoads.remove(0);
+                }
+                deferredLoads.add(load);
+            }
+            return true;
+        }
+    }
+
+    // run the calls made while the sdk was initializing, in order (main thread only, after userSdk is set).
+    // calls made meanwhile on other threads are queued behind, until the queue has been drained
+    private void replaySdkOps() {
+        while (true) {
+            CoronaTimedRunnable sdkOp;
+            synchronized (pendingSdkOps) {
+                if (pendingSdkOps.isEmpty()) {
+                    isReplayingSdkOps = false;
+                    replayingSdkOp = null;
+                    return;
+                }
+                sdkOp = pendingSdkOps.remove(0);
+                replayingSdkOp = sdkOp;
+            }
+
+            // timed like any other operation on the UI thread
+            sdkOp.run();
+        }
+    }
+
+    // replace the source of fullscreen ads, eg. with a stand-in that doesn't need the AppLovin SDK.
+    // takes effect for the next load and show, null restores the AppLovin SDK
+    void setAdProvider(CoronaAdProvider provider) {
+        adProvider = (provider != null) ? provider : new CoronaAppLovinAdProvider();
+    }
+
+    // finish init once the sdk is ready (main thread)
+    private void sdkInitialized(AppLovinSdk sdk, long initStartTime) {
+        if (coronaListener == CoronaLua.REFNIL) { // the runtime has exited in the meantime
+            return;
+        }
+        long startTime = SystemClock.elapsedRealtime();
+
+        // publish the sdk and start the replay atomically, so a load can't overtake the queued ones
+        synchronized (pendingSdkOps) {
+            userSdk = sdk;
+            isSdkInitPending = false;
+            isReplayingSdkOps = true;
+        }
+
+        if (!componentCallbacksRegistered) {
+            CoronaEnvironment.getApplicationContext().registerComponentCallbacks(componentCallbacks);
+            componentCallbacksRegistered = true;
+        }
+
+        // send Corona Lua Event
+        CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_INIT, null);
+        coronaEvent.duration = SystemClock.elapsedRealtime() - initStartTime;
+        dispatchLuaEvent(coronaEvent);
+        recordUiOperation("init", null, startTime);
+
+        // the replayed calls are timed one by one
+        replaySdkOps();
+    }
+
+    // read the init option 'simulation' (table on top of the stack).
+    // returns null after logging an error when an option is invalid
+    private CoronaSimulatedAdProvider parseSimulationOptions(LuaState L, String logContext) {
+        CoronaSimulatedAdProvider provider = new CoronaSimulatedAdProvider();
+        int tableIndex = L.getTop();
+
+        for (L.pushNil(); L.next(tableIndex); L.pop(1)) {
+            if (L.type(-2) != LuaType.STRING) {
+                logMsg(LOG_ERROR, logContext, "options.simulation must be a key/value table");
+                return null;
+            }
+
+            String key = L.toString(-2);
+            LuaType valueType = L.type(-1);
+
+            switch (key) {
+                case "fillRate":
+                    if (valueType == LuaType.NUMBER) {
+                        provider.fillRate = L.toNumber(-1);
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.fillRate (number) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                case "minLatency":
+                    if (valueType == LuaType.NUMBER) {
+                        provider.minLatencyMs = (long) L.toNumber(-1);
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.minLatency (number) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                case "maxLatency":
+                    if (valueType == LuaType.NUMBER) {
+                        provider.maxLatencyMs = (long) L.toNumber(-1);
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.maxLatency (number) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                case "errorCodes":
+                    if (valueType == LuaType.TABLE) {
+                        List<Integer> errorCodes = new ArrayList<>();
+                        int codesIndex = L.getTop();
+                        for (L.pushNil(); L.next(codesIndex); L.pop(1)) {
+                            if (L.type(-1) != LuaType.NUMBER) {
+                                logMsg(LOG_ERROR, logContext, "options.simulation.errorCodes must be an array of numbers");
+                                return null;
+                            }
+                            errorCodes.add((int) L.toNumber(-1));
+                        }
+                        if (errorCodes.isEmpty()) {
+                            logMsg(LOG_ERROR, logContext, "options.simulation.errorCodes must not be empty");
+                            return null;
+                        }
+                        provider.errorCodes = new int[errorCodes.size()];
+                        for (int i = 0; i < errorCodes.size(); i++) {
+                            provider.errorCodes[i] = errorCodes.get(i);
+                        }
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.errorCodes (table) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                case "rewardOutcome":
+                    if (valueType == LuaType.STRING) {
+                        String rewardOutcome = L.toString(-1);
+                        if (!SIMULATED_REWARD_OUTCOMES.contains(rewardOutcome)) {
+                            logMsg(LOG_ERROR, logContext, "Invalid options.simulation.rewardOutcome '", rewardOutcome, SIMULATED_REWARD_OUTCOMES_HINT);
+                            return null;
+                        }
+                        provider.rewardOutcome = rewardOutcome;
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.rewardOutcome (string) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                case "clickRate":
+                    if (valueType == LuaType.NUMBER) {
+                        provider.clickRate = L.toNumber(-1);
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.clickRate (number) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                case "showDuration":
+                    if (valueType == LuaType.NUMBER) {
+                        provider.showDurationMs = (long) L.toNumber(-1);
+                    } else {
+                        logMsg(LOG_ERROR, logContext, "options.simulation.showDuration (number) expected, got: ", L.typeName(-1));
+                        return null;
+                    }
+                    break;
+                default:
+                    logMsg(LOG_ERROR, logContext, "Invalid option 'simulation.", key, "'");
+                    return null;
+            }
+        }
+
+        // validation
+        if ((provider.fillRate < 0) || (provider.fillRate > 1)) {
+            logMsg(LOG_ERROR, logContext, "options.simulation.fillRate must be between 0 and 1");
+            return null;
+        }
+
+        if ((provider.clickRate < 0) || (provider.clickRate > 1)) {
+            logMsg(LOG_ERROR, logContext, "options.simulation.clickRate must be between 0 and 1");
+            return null;
+        }
+
+        if ((provider.minLatencyMs < 0) || (provider.maxLatencyMs < provider.minLatencyMs)) {
+            logMsg(LOG_ERROR, logContext, "options.simulation latencies must be 0 or greater, with maxLatency >= minLatency");
+            return null;
+        }
+
+        if (provider.showDurationMs < 0) {
+            logMsg(LOG_ERROR, logContext, "options.simulation.showDuration must be 0 or greater");
+            return null;
+        }
+
+        return provider;
+    }
+
+    // create a banner view reporting to the banner delegate (main thread only)
+    private AppLovinAdView createBannerView(AppLovinSdk activeSdk, AppLovinAdSize adSize, CoronaActivity coronaActivity) {
+        AppLovinAdView bannerAd = adProvider.createBannerView(activeSdk, adSize, coronaActivity);
+        bannerAd.setAdClickListener(applovinBannerDelegate);
+        bannerAd.setAdDisplayListener(applovinBannerDelegate);
+        bannerAd.setAdLoadListener(applovinBannerDelegate);
+
+        return bannerAd;
+    }
 
-    // message constants
-    private static final String CORONA_TAG = "Corona";
-    private static final String ERROR_MSG = "ERROR: ";
-    private static final String WARNING_MSG = "WARNING: ";
+    // remove a banner view from the overlay and release its WebView (main thread only)
+    private static void destroyBannerView(AppLovinAdView bannerAd) {
+        if (bannerAd.getParent() instanceof ViewGroup) {
+            ((ViewGroup) bannerAd.getParent()).removeView(bannerAd);
+        }
+        bannerAd.removeAllViews();
+        bannerAd.destroy();
+    }
 
-    // add missing event keys
-    private static final String EVENT_PHASE_KEY = "phase";
-    private static final String EVENT_DATA_KEY = "data";
-    private static final String EVENT_TYPE_KEY = "type";
+    // a banner view is on screen if it's attached to the overlay and not hidden
+    private static boolean isBannerViewOnScreen(AppLovinAdView bannerAd) {
+        return (bannerAd != null) && (bannerAd.getParent() != null) && (bannerAd.getVisibility() == View.VISIBLE);
+    }
 
-    // saved objects (apiKey, ad state, etc)
-    final private static Map<String, Object> applovinObjects = new HashMap<>();
+    // compute the display metrics used to place banners, unless they are still valid (main thread only)
+    private void updateDisplayMetrics(CoronaActivity coronaActivity) {
+        if (displayMetricsValid) {
+            return;
+        }
 
-    // ad dictionary keys
-    private static final String USER_SDK_KEY = "userSdk";
-    private static final String USER_INTERSTITIAL_INSTANCE_KEY = "userInterstitial";
-    private static final String USER_REWARDEDVIDEO_INSTANCE_KEY = "userRewardedVideo";
-    private static final String USER_BANNER_INSTANCE_KEY = "userBanner";
-    private static final String Y_RATIO_KEY = "yRatio";
+        // calculate the Corona->device coordinate ratio.
+        // we don't use display.contentScaleY here as there are cases where it's difficult to get the proper values to use
+        // especially on Android. uses the same formula for iOS and Android for the sake of consistency.
+        // the ratio can change between orientation changes, so it's invalidated on configuration changes
+        Point point1 = coronaActivity.convertCoronaPointToAndroidPoint(0, 0);
+        Point point2 = coronaActivity.convertCoronaPointToAndroidPoint(1000, 1000);
+        yRatio = (double) (point2.y - point1.y) / 1000.0;
 
-    private static int coronaListener = CoronaLua.REFNIL;
-    private static CoronaRuntimeTaskDispatcher coronaRuntimeTaskDispatcher = null;
+        Display display = coronaActivity.getWindowManager().getDefaultDisplay();
+        int orientation = coronaActivity.getResources().getConfiguration().orientation;
+
+        Point size = new Point();
+        display.getSize(size);
 
-    private final CoronaAppLovinDelegate applovinInterstitialDelegate = new CoronaAppLovinDelegate(TYPE_INTERSTITIAL);
-    private final CoronaAppLovinDelegate applovinRewardedDelegate = new CoronaAppLovinDelegate(TYPE_REWARDEDVIDEO);
-    private final CoronaAppLovinDelegate applovinBannerDelegate = new CoronaAppLovinDelegate(TYPE_BANNER);
+        if (orientation == ORIENTATION_PORTRAIT) {
+            orientedDisplayHeight = size.y;
+        } else {
+            orientedDisplayHeight = size.x;
+        }
 
-    private static String functionSignature = "";
+        displayMetricsValid = true;
+    }
 
-    // ----------------------------------------------------------------------------------
-    // Helper classes to keep track of information not available in the SDK base classes
-    // ----------------------------------------------------------------------------------
+    // drop a replacement banner that is still loading off-screen (main thread only)
+    private void cancelBannerBuffer(CoronaAdTypeState adTypeState) {
+        CoronaBannerBuffer bannerBuffer = adTypeState.bannerBuffer;
+        if (bannerBuffer != null) {
+            adTypeState.bannerBuffer = null;
+            adTypeState.loadFinished(null);
+            bannerBuffer.bannerAd.setAdLoadListener(applovinBannerDelegate);
+            bannerViewPool.release(bannerBuffer.adSize, bannerBuffer.bannerAd);
+        }
+    }
 
-    private static class CoronaAdStatus {
-        AppLovinAd ad;
-        boolean isLoaded;
-        boolean bannerIsVisible;
+    // release what the plugin holds beyond what's on screen (main thread only).
+    // moderate pressure (including the app moving to the background): banner views that aren't on screen
+    // and expired ads. critical pressure: also a banner loading off-screen and every preloaded ad.
+    // the released ads are loaded again once memory has recovered
+    private void trimMemory(boolean isCritical) {
+        CoronaAdTypeState bannerState = getAdTypeState(CoronaAdType.BANNER);
+        if (isCritical) {
+            cancelBannerBuffer(bannerState);
+        }
 
-        CoronaAdStatus() {
-            this.ad = null;
-            this.isLoaded = false;
-            this.bannerIsVisible = false;
+        AppLovinAdView bannerAd = bannerState.bannerAd;
+        if ((bannerAd != null) && !isBannerViewOnScreen(bannerAd)) {
+            trimmedBannerSize = bannerState.bannerAdSize;
+            destroyBannerView(bannerAd);
+            bannerState.clearBanner();
         }
 
-        void dealloc() {
-            this.ad = null;
+        bannerViewPool.destroyAll();
+
+        long now = SystemClock.elapsedRealtime();
+        for (CoronaAdType adType : new CoronaAdType[]{CoronaAdType.INTERSTITIAL, CoronaAdType.REWARDEDVIDEO}) {
+            CoronaAdTypeState adTypeState = getAdTypeState(adType);
+            int droppedAdCount = adTypeState.dropExpiredAds(now);
+            if (isCritical) {
+                droppedAdCount += adTypeState.trimReadyAds(0);
+            }
+            if (droppedAdCount > 0) {
+                adTypeState.isTrimmed = true;
+            }
         }
+
+        // every further trim request postpones the recovery
+        mainHandler.removeCallbacks(trimRecoveryRunnable);
+        mainHandler.postDelayed(trimRecoveryRunnable, TRIM_RECOVERY_DELAY_MS);
     }
 
-    // -------------------------------------------------------
-    // Plugin lifecycle events
-    // -------------------------------------------------------
+    // reloads what trimMemory() released once the app is in the foreground and memory isn't low (posted to the main thread)
+    private final CoronaTimedRunnable trimRecoveryRunnable = new CoronaTimedRunnable("reload", null) {
+        @Override
+        void runTimed() {
+            CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+            AppLovinSdk activeSdk = userSdk;
+            if ((coronaActivity == null) || (activeSdk == null) || isSuspended) { // onResumed() posts it again
+                return;
+            }
 
-    /**
-     * Called after the Corona runtime has been created and just before executing the "main.lua" file.
-     * <p>
-     * Warning! This method is not called on the main thread.
-     *
-     * @param runtime Reference to the CoronaRuntime object that has just been loaded/initialized.
-     *                Provides a LuaState object that allows the application to extend the Lua API.
-     */
-    @Override
-    public void onLoaded(CoronaRuntime runtime) {
-        // Note that this method will not be called the first time a Corona activity has been launched.
-        // This is because this listener cannot be added to the CoronaEnvironment until after
-        // this plugin has been required-in by Lua, which occurs after the onLoaded() event.
-        // However, this method will be called when a 2nd Corona activity has been created.
-        if (coronaRuntimeTaskDispatcher == null) {
-            coronaRuntimeTaskDispatcher = new CoronaRuntimeTaskDispatcher(runtime);
+            if (isSystemLowOnMemory(coronaActivity)) {
+                mainHandler.postDelayed(this, TRIM_RECOVERY_DELAY_MS);
+                return;
+            }
 
-            // initialize validation tables
-            validAdTypes.add(TYPE_INTERSTITIAL);
-            validAdTypes.add(TYPE_REWARDEDVIDEO);
-            validAdTypes.add(TYPE_BANNER);
+            for (CoronaAdType adType : new CoronaAdType[]{CoronaAdType.INTERSTITIAL, CoronaAdType.REWARDEDVIDEO}) {
+                CoronaAdTypeState adTypeState = getAdTypeState(adType);
+                if (adTypeState.isTrimmed) {
+                    adTypeState.isTrimmed = false;
+                    fillAdPool(activeSdk, adType);
+                }
+            }
 
-            validBannerSizes.add(BANNER_STANDARD);
-            validBannerSizes.add(BANNER_LEADER);
-            validBannerSizes.add(BANNER_MREC);
+            // unless Lua has loaded or hidden the banner in the meantime
+            AppLovinAdSize bannerSize = trimmedBannerSize;
+            trimmedBannerSize = null;
+            CoronaAdTypeState bannerState = getAdTypeState(CoronaAdType.BANNER);
+            if ((bannerSize != null) && (bannerState.bannerAd == null)) {
+                AppLovinAdView bannerAd = bannerViewPool.obtain(bannerSize);
+                if (bannerAd == null) {
+                    bannerAd = createBannerView(activeSdk, bannerSize, coronaActivity);
+                }
 
-            validBannerPositions.add(BANNER_ALIGN_TOP);
-            validBannerPositions.add(BANNER_ALIGN_CENTER);
-            validBannerPositions.add(BANNER_ALIGN_BOTTOM);
+                bannerState.bannerAd = bannerAd;
+                bannerState.bannerAdSize = bannerSize;
+                bannerState.loadStarted();
+                adProvider.loadBanner(bannerAd, applovinBannerDelegate);
+            }
         }
-    }
+    };
 
-    /**
-     * Called just after the Corona runtime has executed the "main.lua" file.
-     * <p>
-     * Warning! This method is not called on the main thread.
-     *
-     * @param runtime Reference to the CoronaRuntime object that has just been started.
-     */
-    @Override
-    public void onStarted(CoronaRuntime runtime) {
+    private static boolean isSystemLowOnMemory(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return false;
+        }
+
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        return memoryInfo.lowMemory;
     }
 
-    /**
-     * Called just after the Corona runtime has been suspended which pauses all rendering, audio, timers,
-     * and other Corona related operations. This can happen when another Android activity (ie: window) has
-     * been displayed, when the screen has been powered off, or when the screen lock is shown.
-     * <p>
-     * Warning! This method is not called on the main thread.
-     *
-     * @param runtime Reference to the CoronaRuntime object that has just been suspended.
-     */
-    @Override
-    public void onSuspended(CoronaRuntime runtime) {
+    private static boolean isLowRamDevice(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return false;
+        }
+
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        return (activityManager != null) && activityManager.isLowRamDevice();
     }
 
-    /**
-     * Called just after the Corona runtime has been resumed after a suspend.
-     * <p>
-     * Warning! This method is not called on the main thread.
-     *
-     * @param runtime Reference to the CoronaRuntime object that has just been resumed.
-     */
-    @Override
-    public void onResumed(CoronaRuntime runtime) {
+    // refill the pool after an ad from it has been shown, if it holds more than one ad or auto reload is on
+    private void refillAdPool(CoronaAdType adType) {
+        CoronaAdTypeState adTypeState = getAdTypeState(adType);
+        CoronaAdPool adPool = adTypeState.adPool;
+        CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+        AppLovinSdk activeSdk = userSdk;
+
+        if ((adPool != null) && ((adPool.getPoolSize() > 1) || adTypeState.autoReload) && (coronaActivity != null) && (activeSdk != null)) {
+            fillAdPool(activeSdk, adType);
+        }
     }
 
-    /**
-     * Called just before the Corona runtime terminates.
-     * <p>
-     * This happens when the Corona activity is being destroyed which happens when the user presses the Back button
-     * on the activity, when the native.requestExit() method is called in Lua, or when the activity's finish()
-     * method is called. This does not mean that the application is exiting.
-     * <p>
-     * Warning! This method is not called on the main thread.
-     *
-     * @param runtime Reference to the CoronaRuntime object that is being terminated.
-     */
-    @Override
-    public void onExiting(CoronaRuntime runtime) {
-        // clear the saved ad objects
-        for (String key : applovinObjects.keySet()) {
-            Object object = applovinObjects.get(key);
-            if (object instanceof CoronaAdStatus) {
-                CoronaAdStatus adStatus = (CoronaAdStatus) object;
-                adStatus.dealloc();
+    // get a cleared event record from the pool
+    private CoronaEventRecord obtainLuaEvent(String phase, String adType) {
+        CoronaEventRecord event = null;
+
+        synchronized (freeLuaEvents) {
+            if (freeLuaEventCount > 0) {
+                event = freeLuaEvents[--freeLuaEventCount];
+                freeLuaEvents[freeLuaEventCount] = null;
             }
         }
-        applovinObjects.clear();
 
-        CoronaLua.deleteRef(runtime.getLuaState(), coronaListener);
-        coronaListener = CoronaLua.REFNIL;
+        if (event == null) {
+            event = new CoronaEventRecord();
+        }
 
-        validAdTypes.clear();
-        validBannerSizes.clear();
-        validBannerPositions.clear();
+        event.phase = phase;
+        event.type = adType;
+        return event;
+    }
 
-        coronaRuntimeTaskDispatcher = null;
+    // return an event record to the pool once it has been sent to Lua
+    private void recycleLuaEvent(CoronaEventRecord event) {
+        event.reset();
+
+        synchronized (freeLuaEvents) {
+            if (freeLuaEventCount < EVENT_POOL_SIZE) {
+                freeLuaEvents[freeLuaEventCount++] = event;
+            }
+        }
     }
 
-    // --------------------------------------------------------------------------
-    // helper functions
-    // --------------------------------------------------------------------------
+    // dispatch a Lua event to our callback
+    private void dispatchLuaEvent(CoronaEventRecord event) {
+        // journaled before the dispatcher check, so events arriving between runtimes are kept
+        CoronaEventJournal journal = eventJournal;
+        if (journal != null) {
+            journalLuaEvent(journal, event);
+        }
 
-    // log message to console
-    private void logMsg(String msgType, String errorMsg) {
-        String functionID = functionSignature;
-        if (!functionID.isEmpty()) {
-            functionID += ", ";
+        if (coronaRuntimeTaskDispatcher == null) {
+            recycleLuaEvent(event);
+            return;
         }
 
-        Log.i(CORONA_TAG, msgType + functionID + errorMsg);
+        diagnosticLog.record(LOG_NONE, event.type, event.phase, event.errorCode);
+
+        if (batchEvents) {
+            // queue the event and make sure a single task is pending to deliver everything queued so far
+            CoronaEventRecord head;
+            do {
+                head = pendingLuaEvents.get();
+                event.next = head;
+            } while (!pendingLuaEvents.compareAndSet(head, event));
+
+            if (isLuaEventDrainScheduled.compareAndSet(false, true)) {
+                coronaRuntimeTaskDispatcher.send(drainLuaEventsTask);
+            }
+        } else {
+            // the record is its own runtime task
+            coronaRuntimeTaskDispatcher.send(event);
+        }
     }
 
-    // return true if SDK is properly initialized
-    private boolean isSDKInitialized() {
-        if (coronaListener == CoronaLua.REFNIL) {
-            logMsg(ERROR_MSG, "applovin.init() must be called before calling other API functions");
-            return false;
+    // start, resize or stop (fileSize 0) the event journal. the files are kept when it stops
+    private void setEventJournalSize(Context context, int fileSize) {
+        final CoronaEventJournal oldJournal = eventJournal;
+        if ((oldJournal != null) && (oldJournal.fileSize == fileSize)) {
+            return;
         }
 
-        return true;
+        eventJournal = (fileSize > 0) ? new CoronaEventJournal(this, new File(context.getFilesDir(), JOURNAL_FILE_NAME), fileSize) : null;
+
+        // after the records already queued, which run on the same executor
+        if (oldJournal != null) {
+            backgroundExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    oldJournal.shutdown();
+                }
+            });
+        }
     }
 
-    // dispatch a Lua event to our callback (dynamic handling of properties through map)
-    private void dispatchLuaEvent(final Map<String, Object> event) {
-        if (coronaRuntimeTaskDispatcher != null) {
-            coronaRuntimeTaskDispatcher.send(new CoronaRuntimeTask() {
-                public void executeUsing(CoronaRuntime runtime) {
-                    try {
-                        LuaState L = runtime.getLuaState();
-                        CoronaLua.newEvent(L, EVENT_NAME);
-                        boolean hasErrorKey = false;
+    private void journalLuaEvent(CoronaEventJournal journal, CoronaEventRecord event) {
+        CoronaAdType adType = (event.type != null) ? CoronaAdType.fromTypeName(event.type) : null;
+        String placement = null;
+        if (adType != null) {
+            CoronaAdTypeState adTypeState = getAdTypeState(adType);
+            if (!PHASE_LOADED.equals(event.phase) && !PHASE_FAILED.equals(event.phase)) {
+                placement = adTypeState.showPlacement;
+            }
+            if (PHASE_CLOSED.equals(event.phase)) {
+                adTypeState.showPlacement = null;
+            }
+        }
 
-                        // add event parameters from map
-                        for (String key : event.keySet()) {
-                            CoronaLua.pushValue(L, event.get(key));           // push value
-                            L.setField(-2, key);                              // push key
+        journal.record((adType != null) ? adType.ordinal() : -1, JOURNAL_PHASES.indexOf(event.phase), event.errorCode, placement);
+    }
 
-                            if (!hasErrorKey) {
-                                hasErrorKey = key.equals(CoronaLuaEvent.ISERROR_KEY);
-                            }
-                        }
+    // delivers all queued events in order within one runtime task
+    private final CoronaRuntimeTask drainLuaEventsTask = new CoronaRuntimeTask() {
+        public void executeUsing(CoronaRuntime runtime) {
+            // clear the flag first so events queued while draining schedule another task
+            isLuaEventDrainScheduled.set(false);
+
+            // events were queued newest first, restore their order
+            CoronaEventRecord event = pendingLuaEvents.getAndSet(null);
+            CoronaEventRecord orderedEvents = null;
+            while (event != null) {
+                CoronaEventRecord next = event.next;
+                event.next = orderedEvents;
+                orderedEvents = event;
+                event = next;
+            }
 
-                        // add error key if not in map
-                        if (!hasErrorKey) {
-                            L.pushBoolean(false);
-                            L.setField(-2, CoronaLuaEvent.ISERROR_KEY);
-                        }
+            LuaState L = runtime.getLuaState();
+            while (orderedEvents != null) {
+                CoronaEventRecord next = orderedEvents.next;
+                sendLuaEvent(L, orderedEvents);
+                recycleLuaEvent(orderedEvents);
+                orderedEvents = next;
+            }
+        }
+    };
+
+    // push an event table field by field and call the Lua listener (must be called on the Corona thread)
+    private void sendLuaEvent(LuaState L, CoronaEventRecord event) {
+        int top = L.getTop();
+        try {
+            CoronaLua.newEvent(L, EVENT_NAME);
+
+            L.pushString(event.phase);
+            L.setField(-2, EVENT_PHASE_KEY);
+
+            if (event.type != null) {
+                L.pushString(event.type);
+                L.setField(-2, EVENT_TYPE_KEY);
+            }
+
+            L.pushBoolean(event.isError);
+            L.setField(-2, CoronaLuaEvent.ISERROR_KEY);
+
+            if (event.response != null) {
+                L.pushString(event.response);
+                L.setField(-2, CoronaLuaEvent.RESPONSE_KEY);
+            }
 
-                        // add provider
-                        L.pushString(PROVIDER_NAME);
-                        L.setField(-2, CoronaLuaEvent.PROVIDER_KEY);
+            if (event.phase.equals(PHASE_FAILED)) {
+                L.pushInteger(event.errorCode);
+                L.setField(-2, EVENT_ERROR_CODE_KEY);
+                L.pushInteger(event.retryAttempt);
+                L.setField(-2, EVENT_RETRY_ATTEMPT_KEY);
+            } else if (event.phase.equals(PHASE_INIT)) {
+                L.pushNumber(event.duration);
+                L.setField(-2, EVENT_INIT_DURATION_KEY);
+            } else if (event.phase.equals(PHASE_PERF_WARNING)) {
+                L.pushString(event.operation);
+                L.setField(-2, EVENT_OPERATION_KEY);
+                L.pushNumber(event.duration);
+                L.setField(-2, EVENT_DURATION_KEY);
+            }
 
-                        CoronaLua.dispatchEvent(L, coronaListener, 0);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
+            switch (event.dataKind) {
+                case EVENT_DATA_STRING:
+                    L.pushString(event.dataString);
+                    L.setField(-2, EVENT_DATA_KEY);
+                    break;
+                case EVENT_DATA_PLAYBACK:
+                    L.newTable(0, 2);
+                    L.pushNumber(event.percentPlayed);
+                    L.setField(-2, EVENT_DATA_PERCENT_PLAYED_KEY);
+                    L.pushBoolean(event.fullyWatched);
+                    L.setField(-2, EVENT_DATA_FULLY_WATCHED_KEY);
+                    L.setField(-2, EVENT_DATA_KEY);
+                    break;
+                case EVENT_DATA_MAP:
+                    if (event.dataMap == null) { // the sdk may pass no response, same as EVENT_DATA_NONE
+                        break;
                     }
-                }
-            });
+                    L.newTable(0, event.dataMap.size());
+                    for (Map.Entry<?, ?> entry : event.dataMap.entrySet()) {
+                        CoronaLua.pushValue(L, entry.getValue());
+                        L.setField(-2, String.valueOf(entry.getKey()));
+                    }
+                    L.setField(-2, EVENT_DATA_KEY);
+                    break;
+            }
+
+            // add provider
+            L.pushString(PROVIDER_NAME);
+            L.setField(-2, CoronaLuaEvent.PROVIDER_KEY);
+
+            CoronaLua.dispatchEvent(L, coronaListener, 0);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            // drop the partly built event table
+            L.setTop(top);
         }
     }
 
@@ -347,6 +2729,10 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                         new SetHasUserConsent(),
                         new SetIsAgeRestrictedUser(),
                         new showDebugger(),
+                        new GetAdCounts(),
+                        new GetMetrics(),
+                        new GetDiagnosticLog(),
+                        new ReadEventJournal(),
                 };
         String libName = L.toString(1);
         L.register(libName, luaFunctions);
@@ -366,31 +2752,40 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         // This method is executed when the Lua function is called
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.init(listener, options)";
+            final String logContext = "applovin.init(listener, options)";
 
             // prevent init from being called twice
             if (coronaListener != CoronaLua.REFNIL) {
-                logMsg(WARNING_MSG, "init() should only be called once");
+                logMsg(LOG_WARNING, logContext, "init() should only be called once");
                 return 0;
             }
 
             // check number of arguments
             int nargs = L.getTop();
             if (nargs != 2) {
-                logMsg(ERROR_MSG, "Expected 2 arguments, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 2 arguments, got ", nargs);
                 return 0;
             }
 
             String userSdkKey = null;
             boolean verboseLogging = false;
+            boolean batchLuaEvents = false;
+            int loadRetries = 0;
+            double adTtl = 0;
+            double perfWarningThreshold = 0;
+            boolean autoReload = false;
+            boolean keepAds = false;
+            int initLogLevel = LOG_WARNING;
+            double journalSize = 0;
             boolean testMode = false;
             boolean startMuted = false;
+            CoronaSimulatedAdProvider simulatedAdProvider = null;
 
             // get listener
             if (CoronaLua.isListener(L, 1, PROVIDER_NAME)) {
                 coronaListener = CoronaLua.newRef(L, 1);
             } else {
-                logMsg(ERROR_MSG, "listener expected, got: " + L.typeName(1));
+                logMsg(LOG_ERROR, logContext, "listener expected, got: ", L.typeName(1));
                 return 0;
             }
 
@@ -398,82 +2793,221 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             if (L.type(2) == LuaType.TABLE) {
                 for (L.pushNil(); L.next(2); L.pop(1)) {
                     if (L.type(-2) != LuaType.STRING) {
-                        logMsg(ERROR_MSG, "options must be a key/value table");
+                        logMsg(LOG_ERROR, logContext, "options must be a key/value table");
                         return 0;
                     }
 
                     String key = L.toString(-2);
+                    LuaType valueType = L.type(-1);
 
                     switch (key) {
                         case "sdkKey":
-                            if (L.type(-1) == LuaType.STRING) {
+                            if (valueType == LuaType.STRING) {
                                 userSdkKey = L.toString(-1);
                             } else {
-                                logMsg(ERROR_MSG, "options.sdkKey (string) expected, got: " + L.typeName(-1));
+                                logMsg(LOG_ERROR, logContext, "options.sdkKey (string) expected, got: ", L.typeName(-1));
                                 return 0;
                             }
                             break;
                         case "verboseLogging":
-                            if (L.type(-1) == LuaType.BOOLEAN) {
+                            if (valueType == LuaType.BOOLEAN) {
                                 verboseLogging = L.toBoolean(-1);
                             } else {
-                                logMsg(ERROR_MSG, "options.verboseLogging (boolean) expected, got: " + L.typeName(-1));
+                                logMsg(LOG_ERROR, logContext, "options.verboseLogging (boolean) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "batchEvents":
+                            if (valueType == LuaType.BOOLEAN) {
+                                batchLuaEvents = L.toBoolean(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.batchEvents (boolean) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "maxLoadRetries":
+                            if (valueType == LuaType.NUMBER) {
+                                loadRetries = (int) L.toNumber(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.maxLoadRetries (number) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "perfWarningThreshold":
+                            if (valueType == LuaType.NUMBER) {
+                                perfWarningThreshold = L.toNumber(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.perfWarningThreshold (number) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "adTtl":
+                            if (valueType == LuaType.NUMBER) {
+                                adTtl = L.toNumber(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.adTtl (number) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "autoReload":
+                            if (valueType == LuaType.BOOLEAN) {
+                                autoReload = L.toBoolean(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.autoReload (boolean) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "logLevel":
+                            if (valueType == LuaType.STRING) {
+                                String levelName = L.toString(-1);
+                                initLogLevel = LOG_LEVEL_NAMES.indexOf(levelName);
+                                if (initLogLevel < 0) {
+                                    logMsg(LOG_ERROR, logContext, "Invalid options.logLevel '", levelName, LOG_LEVEL_NAMES_HINT);
+                                    return 0;
+                                }
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.logLevel (string) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "preserveAds":
+                            if (valueType == LuaType.BOOLEAN) {
+                                keepAds = L.toBoolean(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.preserveAds (boolean) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "eventJournalSize":
+                            if (valueType == LuaType.NUMBER) {
+                                journalSize = L.toNumber(-1);
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.eventJournalSize (number) expected, got: ", L.typeName(-1));
                                 return 0;
                             }
                             break;
                         case "testMode":
-                            if (L.type(-1) == LuaType.BOOLEAN) {
-                                logMsg(WARNING_MSG, "options.testMode is ignored. Use UI to set test mode");
+                            if (valueType == LuaType.BOOLEAN) {
+                                logMsg(LOG_WARNING, logContext, "options.testMode is ignored. Use UI to set test mode");
+                            } else {
+                                logMsg(LOG_ERROR, logContext, "options.testMode (boolean) expected, got: ", L.typeName(-1));
+                                return 0;
+                            }
+                            break;
+                        case "simulation":
+                            if (valueType == LuaType.TABLE) {
+                                simulatedAdProvider = parseSimulationOptions(L, logContext);
+                                if (simulatedAdProvider == null) {
+                                    return 0;
+                                }
                             } else {
-                                logMsg(ERROR_MSG, "options.testMode (boolean) expected, got: " + L.typeName(-1));
+                                logMsg(LOG_ERROR, logContext, "options.simulation (table) expected, got: ", L.typeName(-1));
                                 return 0;
                             }
                             break;
                         default:
-                            logMsg(ERROR_MSG, "Invalid option '" + key + "'");
+                            logMsg(LOG_ERROR, logContext, "Invalid option '", key, "'");
                             return 0;
                     }
                 }
             } else {
-                logMsg(ERROR_MSG, "options (table) expected, got " + L.typeName(2));
+                logMsg(LOG_ERROR, logContext, "options (table) expected, got ", L.typeName(2));
                 return 0;
             }
 
             // validation
             if (userSdkKey == null) {
-                logMsg(ERROR_MSG, "options.sdkKey is required");
+                logMsg(LOG_ERROR, logContext, "options.sdkKey is required");
+                return 0;
+            }
+
+            if (loadRetries < 0) {
+                logMsg(LOG_ERROR, logContext, "options.maxLoadRetries must be 0 or greater");
+                return 0;
+            }
+
+            if (adTtl < 0) {
+                logMsg(LOG_ERROR, logContext, "options.adTtl must be 0 or greater");
+                return 0;
+            }
+
+            if (perfWarningThreshold < 0) {
+                logMsg(LOG_ERROR, logContext, "options.perfWarningThreshold must be 0 or greater");
+                return 0;
+            }
+
+            if ((journalSize < 0) || (journalSize > MAX_JOURNAL_SIZE_KB)) {
+                logMsg(LOG_ERROR, logContext, "options.eventJournalSize must be between 0 and ", MAX_JOURNAL_SIZE_KB);
                 return 0;
             }
 
-            // create Applovin SDK settings
+            batchEvents = batchLuaEvents;
+            maxLoadRetries = loadRetries;
+            adTtlMs = (long) (adTtl * 1000);
+            perfWarningThresholdMs = (long) perfWarningThreshold;
+            getAdTypeState(CoronaAdType.INTERSTITIAL).autoReload = autoReload;
+            getAdTypeState(CoronaAdType.REWARDEDVIDEO).autoReload = autoReload;
+            preserveAds = keepAds;
+            logLevel = initLogLevel;
+            if (simulatedAdProvider != null) { // the provider in use otherwise is restored when the runtime exits
+                setAdProvider(simulatedAdProvider);
+            }
+            restoreAdCounts();
+
             final Context coronaContext = CoronaEnvironment.getApplicationContext();
 
-            AppLovinSdkSettings sdkSettings = new AppLovinSdkSettings(coronaContext);
-            sdkSettings.setVerboseLogging(verboseLogging);
-//            sdkSettings.setMuted(startMuted);
+            setEventJournalSize(coronaContext, (int) Math.ceil(journalSize) * 1024);
+
+            maxPoolSize = isLowRamDevice(coronaContext) ? LOW_RAM_MAX_POOL_SIZE : MAX_POOL_SIZE;
 
             final CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
-            final AppLovinSdkSettings fSdkSettings = sdkSettings;
+            final boolean fVerboseLogging = verboseLogging;
             final String fUserSdkKey = userSdkKey;
+            final long initStartTime = SystemClock.elapsedRealtime();
+            final boolean isSimulating = (simulatedAdProvider != null);
+
+            // an sdk kept from the previous runtime (or an earlier init() call) is reused, along with its
+            // preloaded ads, unless it was created with another key or ads are now simulated
+            if ((userSdk != null) && (isSimulating || !userSdkKey.equals(activeSdkKey))) {
+                getAdTypeState(CoronaAdType.INTERSTITIAL).expire();
+                getAdTypeState(CoronaAdType.REWARDEDVIDEO).expire();
+                userSdk = null;
+            }
 
-            if (coronaActivity != null) {
-                Runnable runnableActivity = new Runnable() {
-                    public void run() {
-                        AppLovinSdk userSDK = AppLovinSdk.getInstance(fUserSdkKey, fSdkSettings, coronaContext);
-                        applovinObjects.put(USER_SDK_KEY, userSDK);
+            final AppLovinSdk activeSdk = userSdk;
 
-                        // send Corona Lua Event
-                        Map<String, Object> coronaEvent = new HashMap<>();
-                        coronaEvent.put(EVENT_PHASE_KEY, PHASE_INIT);
-                        dispatchLuaEvent(coronaEvent);
+            if ((coronaActivity != null) && (activeSdk != null)) {
+                // only the Lua listener and the activity bound objects are new
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        sdkInitialized(activeSdk, initStartTime);
                     }
-                };
+                });
+            } else if (coronaActivity != null) {
+                isSdkInitPending = true;
+                activeSdkKey = fUserSdkKey;
+
+                // creating the sdk instance reads its settings and starts its services, keep that off the UI thread
+                final CoronaAdProvider provider = adProvider;
+                backgroundExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final AppLovinSdk sdk = provider.createSdk(fUserSdkKey, fVerboseLogging, coronaContext);
 
-                coronaActivity.runOnUiThread(runnableActivity);
+                        // the sdk is ready once its initialization listener has been called (on the main thread)
+                        provider.initializeSdk(sdk, new AppLovinSdk.SdkInitializationListener() {
+                            @Override
+                            public void onSdkInitialized(AppLovinSdkConfiguration appLovinSdkConfiguration) {
+                                sdkInitialized(sdk, initStartTime);
+                            }
+                        });
+                    }
+                });
             }
 
             // log the plugin version to device console
-            Log.i(CORONA_TAG, PLUGIN_NAME + " (SDK: " + PLUGIN_SDK_VERSION + ")");
+            logMsg(LOG_INFO, logContext, PLUGIN_NAME + " (SDK: ", PLUGIN_SDK_VERSION, ")");
 
             return 0;
         }
@@ -490,9 +3024,9 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         // This method is executed when the Lua function is called
         @Override
         public int invoke(final LuaState L) {
-            functionSignature = "applovin.load( adType [, options] )";
+            final String logContext = "applovin.load( adType [, options] )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
@@ -500,7 +3034,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             // need to accept 0 args for backwards compatibility
             int nargs = L.getTop();
             if (nargs > 2) {
-                logMsg(ERROR_MSG, "Expected 1 or 2 arguments, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 or 2 arguments, got ", nargs);
                 return 0;
             }
 
@@ -508,6 +3042,10 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             boolean legacyAPI = true;
             String adType = null;
             String bannerSize = null;
+            int poolSize = 0;
+            boolean hasAutoReload = false;
+            boolean autoReload = false;
+            boolean doubleBuffer = false;
 
             // check args
             if (!L.isNoneOrNil(1)) {
@@ -517,7 +3055,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                     legacyAPI = false;
                     adType = L.toString(1);
                 } else {
-                    logMsg(ERROR_MSG, "adType (string) expected, got: " + L.typeName(1));
+                    logMsg(LOG_ERROR, logContext, "adType (string) expected, got: ", L.typeName(1));
                     return 0;
                 }
             }
@@ -527,34 +3065,62 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                 if (L.type(2) == LuaType.TABLE) {
                     for (L.pushNil(); L.next(2); L.pop(1)) {
                         if (L.type(-2) != LuaType.STRING) {
-                            logMsg(ERROR_MSG, "options must be a key/value table");
+                            logMsg(LOG_ERROR, logContext, "options must be a key/value table");
                             return 0;
                         }
 
                         String key = L.toString(-2);
+                        LuaType valueType = L.type(-1);
 
-                        if (key.equals("bannerSize")) {
-                            if (L.type(-1) == LuaType.STRING) {
-                                bannerSize = L.toString(-1);
-                            } else {
-                                logMsg(ERROR_MSG, "options.bannerSize (string) expected, got: " + L.typeName(-1));
-                                return 0;
-                            }
-                        } else {
-                            logMsg(ERROR_MSG, "Invalid option '" + key + "'");
-                            return 0;
+                        switch (key) {
+                            case "bannerSize":
+                                if (valueType == LuaType.STRING) {
+                                    bannerSize = L.toString(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.bannerSize (string) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            case "poolSize":
+                                if (valueType == LuaType.NUMBER) {
+                                    poolSize = (int) L.toNumber(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.poolSize (number) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            case "autoReload":
+                                if (valueType == LuaType.BOOLEAN) {
+                                    hasAutoReload = true;
+                                    autoReload = L.toBoolean(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.autoReload (boolean) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            case "doubleBuffer":
+                                if (valueType == LuaType.BOOLEAN) {
+                                    doubleBuffer = L.toBoolean(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.doubleBuffer (boolean) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            default:
+                                logMsg(LOG_ERROR, logContext, "Invalid option '", key, "'");
+                                return 0;
                         }
                     }
                 } else {
-                    logMsg(ERROR_MSG, "options (table) expected, got " + L.typeName(2));
+                    logMsg(LOG_ERROR, logContext, "options (table) expected, got ", L.typeName(2));
                     return 0;
                 }
             }
 
             // validate
             if (!legacyAPI) {
-                if (!validAdTypes.contains(adType)) {
-                    logMsg(ERROR_MSG, "Invalid adType '" + adType + "'");
+                if (CoronaAdType.fromTypeName(adType) == null) {
+                    logMsg(LOG_ERROR, logContext, "Invalid adType '", adType, "'");
                     return 0;
                 }
 
@@ -563,7 +3129,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                 // check banner size
                 if (bannerSize != null) {
                     if (!validBannerSizes.contains(bannerSize)) {
-                        logMsg(ERROR_MSG, "Invalid banner size '" + bannerSize + "'");
+                        logMsg(LOG_ERROR, logContext, "Invalid banner size '", bannerSize, "'");
                         return 0;
                     }
                 }
@@ -575,109 +3141,144 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                 }
             }
 
+            final CoronaAdType coronaAdType = CoronaAdType.fromTypeName(adType);
+
+            // check pool size
+            if (poolSize != 0) {
+                if (coronaAdType == CoronaAdType.BANNER) {
+                    logMsg(LOG_WARNING, logContext, "options.poolSize is ignored for banners");
+                    poolSize = 0;
+                } else if ((poolSize < 1) || (poolSize > MAX_POOL_SIZE)) {
+                    logMsg(LOG_ERROR, logContext, "options.poolSize must be between 1 and ", MAX_POOL_SIZE);
+                    return 0;
+                } else if (poolSize > maxPoolSize) {
+                    logMsg(LOG_WARNING, logContext, "options.poolSize is limited to ", maxPoolSize, " on low RAM devices");
+                    poolSize = maxPoolSize;
+                }
+            }
+
+            if (hasAutoReload) {
+                if (coronaAdType == CoronaAdType.BANNER) {
+                    logMsg(LOG_WARNING, logContext, "options.autoReload is ignored for banners");
+                } else {
+                    getAdTypeState(coronaAdType).autoReload = autoReload;
+                }
+            }
+
+            if (doubleBuffer && (coronaAdType != CoronaAdType.BANNER)) {
+                logMsg(LOG_WARNING, logContext, "options.doubleBuffer is only used for banners");
+                doubleBuffer = false;
+            }
+
             final CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
-            final boolean fRewarded = rewarded;
-            final String fAdType = adType;
             final String fBannerSize = bannerSize;
+            final int fPoolSize = poolSize;
+            final boolean fDoubleBuffer = doubleBuffer;
 
             if (coronaActivity != null) {
-                coronaActivity.runOnUiThread(new Runnable() {
+                // timed when it runs on the UI thread: banner loads, and loads replayed after init or on resume
+                CoronaTimedRunnable loadRunnable = new CoronaTimedRunnable("load", adType) {
                     @Override
-                    public void run() {
+                    void runTimed() {
+                        if (queueSdkOp(this, logContext)) {
+                            // load() was called right after init(), load once the sdk is ready
+                            return;
+                        }
+
+                        if (isSuspended && deferLoad(this, logContext)) {
+                            // nothing can be shown while suspended, load on resume
+                            return;
+                        }
+
                         // get active sdk to use
-                        AppLovinSdk activeSdk = (AppLovinSdk) applovinObjects.get(USER_SDK_KEY);
+                        AppLovinSdk activeSdk = userSdk;
 
                         if (activeSdk != null) { // can be null if a user has just exited the app while a request was being made
-                            if (fRewarded) {
-                                String activeInstanceKey = USER_REWARDEDVIDEO_INSTANCE_KEY;
-                                AppLovinIncentivizedInterstitial rewardedAd = (AppLovinIncentivizedInterstitial) applovinObjects.get(activeInstanceKey);
-
-                                // initialize rewarded object
-                                if (rewardedAd == null) {
-                                    rewardedAd = AppLovinIncentivizedInterstitial.create(activeSdk);
-                                    applovinObjects.put(activeInstanceKey, rewardedAd);
+                            CoronaAdTypeState adTypeState = getAdTypeState(coronaAdType);
+
+                            if (coronaAdType != CoronaAdType.BANNER) { // interstitial or rewarded video
+                                if (fPoolSize > 0) {
+                                    adTypeState.adPool.setPoolSize(fPoolSize);
                                 }
 
-                                // save extra ad status information not available in ad object
-                                CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_REWARDEDVIDEO);
-                                if (adStatus != null) { // remove old status
-                                    adStatus.dealloc();
+                                if ((adTypeState.getMissingAdCount() <= 0) && (adTypeState.getState() == CoronaAdState.READY)) {
+                                    // the pool is already full, let Lua know an ad is ready
+                                    CoronaAppLovinDelegate delegate = (coronaAdType == CoronaAdType.REWARDEDVIDEO) ? applovinRewardedDelegate : applovinInterstitialDelegate;
+                                    delegate.coronaAdLoaded();
+                                } else {
+                                    fillAdPool(activeSdk, coronaAdType);
                                 }
-                                adStatus = new CoronaAdStatus();
-                                applovinObjects.put(TYPE_REWARDEDVIDEO, adStatus);
-
-                                rewardedAd.preload(applovinRewardedDelegate);
-                            } else { // interstitial or banner ad
-                                if (fAdType.equals(TYPE_BANNER)) {
-                                    // calculate the Corona->device coordinate ratio.
-                                    // we don't use display.contentScaleY here as there are cases where it's difficult to get the proper values to use
-                                    // especially on Android. uses the same formula for iOS and Android for the sake of consistency.
-                                    // re-calculate this value on every load as the ratio can change between orientation changes
-                                    Point point1 = coronaActivity.convertCoronaPointToAndroidPoint(0, 0);
-                                    Point point2 = coronaActivity.convertCoronaPointToAndroidPoint(1000, 1000);
-                                    double yRatio = (double) (point2.y - point1.y) / 1000.0;
-                                    applovinObjects.put(Y_RATIO_KEY, yRatio);
-
-                                    AppLovinAdView bannerAd = (AppLovinAdView) applovinObjects.get(USER_BANNER_INSTANCE_KEY);
-
-                                    // remove old banner
-                                    if (bannerAd != null) {
-                                        bannerAd.removeAllViews();
-                                        bannerAd.destroy();
-                                    }
+                            } else { // banner
+                                AppLovinAdSize applovinBannerSize = AppLovinAdSize.BANNER;
+
+                                if ((fBannerSize == null) || (fBannerSize.equals(BANNER_STANDARD))) {
+                                    applovinBannerSize = AppLovinAdSize.BANNER;
+                                } else if (fBannerSize.equals(BANNER_LEADER)) {
+                                    applovinBannerSize = AppLovinAdSize.LEADER;
+                                } else if (fBannerSize.equals(BANNER_MREC)) {
+                                    applovinBannerSize = AppLovinAdSize.MREC;
+                                }
+
+                                AppLovinAdView bannerAd = adTypeState.bannerAd;
 
-                                    AppLovinAdSize applovinBannerSize = AppLovinAdSize.BANNER;
+                                // a newer load replaces any replacement still loading off-screen,
+                                // or a banner released under memory pressure
+                                cancelBannerBuffer(adTypeState);
+                                trimmedBannerSize = null;
 
-                                    if ((fBannerSize == null) || (fBannerSize.equals(BANNER_STANDARD))) {
-                                        applovinBannerSize = AppLovinAdSize.BANNER;
-                                    } else if (fBannerSize.equals(BANNER_LEADER)) {
-                                        applovinBannerSize = AppLovinAdSize.LEADER;
-                                    } else if (fBannerSize.equals(BANNER_MREC)) {
-                                        applovinBannerSize = AppLovinAdSize.MREC;
+                                if (fDoubleBuffer && isBannerViewOnScreen(bannerAd)) {
+                                    // keep the visible banner on screen and load its replacement off-screen.
+                                    // the two are swapped when the replacement has received its ad
+                                    AppLovinAdView bufferedBannerAd = bannerViewPool.obtain(applovinBannerSize);
+                                    if (bufferedBannerAd == null) {
+                                        bufferedBannerAd = createBannerView(activeSdk, applovinBannerSize, coronaActivity);
                                     }
 
-                                    bannerAd = new AppLovinAdView(activeSdk, applovinBannerSize, coronaActivity);
-                                    bannerAd.setAdClickListener(applovinBannerDelegate);
-                                    bannerAd.setAdDisplayListener(applovinBannerDelegate);
-                                    bannerAd.setAdLoadListener(applovinBannerDelegate);
-                                    applovinObjects.put(USER_BANNER_INSTANCE_KEY, bannerAd);
+                                    CoronaBannerBuffer bannerBuffer = new CoronaBannerBuffer(bufferedBannerAd, applovinBannerSize);
+                                    bufferedBannerAd.setAdLoadListener(bannerBuffer);
+                                    adTypeState.bannerBuffer = bannerBuffer;
+                                    adTypeState.loadStarted();
 
-                                    // save extra ad status information not available in ad object
-                                    CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_BANNER);
-                                    if (adStatus != null) { // remove old status
-                                        adStatus.dealloc();
-                                    }
-                                    adStatus = new CoronaAdStatus();
-                                    applovinObjects.put(TYPE_BANNER, adStatus);
-
-                                    bannerAd.loadNextAd();
-                                } else { // interstitial
-                                    AppLovinInterstitialAdDialog interstitialAd = (AppLovinInterstitialAdDialog) applovinObjects.get(USER_INTERSTITIAL_INSTANCE_KEY);
-
-                                    // initialize interstitial object
-                                    if (interstitialAd == null) {
-                                        interstitialAd = AppLovinInterstitialAd.create(activeSdk, coronaActivity);
-                                        interstitialAd.setAdLoadListener(applovinInterstitialDelegate);
-                                        interstitialAd.setAdDisplayListener(applovinInterstitialDelegate);
-                                        interstitialAd.setAdVideoPlaybackListener(applovinInterstitialDelegate);
-                                        interstitialAd.setAdClickListener(applovinInterstitialDelegate);
-                                        applovinObjects.put(USER_INTERSTITIAL_INSTANCE_KEY, interstitialAd);
-                                    }
+                                    adProvider.loadBanner(bufferedBannerAd, bannerBuffer);
+                                    return;
+                                }
 
-                                    // save extra ad status information not available in ad object
-                                    CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_INTERSTITIAL);
-                                    if (adStatus != null) { // remove old status
-                                        adStatus.dealloc();
+                                // hide the old banner. reuse it if the size matches, otherwise keep it for a later load
+                                if (bannerAd != null) {
+                                    bannerAd.setVisibility(View.GONE);
+
+                                    if (adTypeState.bannerAdSize != applovinBannerSize) {
+                                        bannerViewPool.release(adTypeState.bannerAdSize, bannerAd);
+                                        bannerAd = null;
                                     }
-                                    adStatus = new CoronaAdStatus();
-                                    applovinObjects.put(TYPE_INTERSTITIAL, adStatus);
+                                }
+
+                                if (bannerAd == null) {
+                                    bannerAd = bannerViewPool.obtain(applovinBannerSize);
+                                }
 
-                                    activeSdk.getAdService().loadNextAd(AppLovinAdSize.INTERSTITIAL, applovinInterstitialDelegate);
+                                if (bannerAd == null) {
+                                    bannerAd = createBannerView(activeSdk, applovinBannerSize, coronaActivity);
                                 }
+
+                                // remove old status
+                                adTypeState.clearBanner();
+                                adTypeState.bannerAd = bannerAd;
+                                adTypeState.bannerAdSize = applovinBannerSize;
+                                adTypeState.loadStarted();
+
+                                adProvider.loadBanner(bannerAd, applovinBannerDelegate);
                             }
                         }
                     }
-                });
+                };
+
+                // only banners need the UI thread
+                if (coronaAdType == CoronaAdType.BANNER) {
+                    coronaActivity.runOnUiThread(loadRunnable);
+                } else {
+                    backgroundExecutor.execute(loadRunnable);
+                }
             }
 
             return 0;
@@ -693,9 +3294,9 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.isLoaded( adType )";
+            final String logContext = "applovin.isLoaded( adType )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
@@ -703,7 +3304,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             // need to accept 0 args for backwards compatibility
             int nargs = L.getTop();
             if (nargs > 1) {
-                logMsg(ERROR_MSG, "Expected 1 argument, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 argument, got ", nargs);
                 return 0;
             }
 
@@ -719,29 +3320,28 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                     legacyAPI = false;
                     adType = L.toString(1);
                 } else {
-                    logMsg(ERROR_MSG, "adType (string) expected, got: " + L.typeName(1));
+                    logMsg(LOG_ERROR, logContext, "adType (string) expected, got: ", L.typeName(1));
                     return 0;
                 }
             }
 
             // validate
             if (!legacyAPI) {
-                if (!validAdTypes.contains(adType)) {
-                    logMsg(ERROR_MSG, "Invalid adType '" + adType + "'");
+                if (CoronaAdType.fromTypeName(adType) == null) {
+                    logMsg(LOG_ERROR, logContext, "Invalid adType '", adType, "'");
                     return 0;
                 }
             }
 
-            CoronaAdStatus adStatus;
+            CoronaAdType coronaAdType;
 
             if (legacyAPI) {
-                adStatus = (CoronaAdStatus) applovinObjects.get(rewarded ? TYPE_REWARDEDVIDEO : TYPE_INTERSTITIAL);
+                coronaAdType = rewarded ? CoronaAdType.REWARDEDVIDEO : CoronaAdType.INTERSTITIAL;
             } else {
-                adStatus = (CoronaAdStatus) applovinObjects.get(adType);
+                coronaAdType = CoronaAdType.fromTypeName(adType);
             }
 
-            boolean isAdLoaded = (adStatus != null) && (adStatus.ad != null) && (adStatus.isLoaded || adStatus.bannerIsVisible);
-            L.pushBoolean(isAdLoaded);
+            L.pushBoolean(getAdTypeState(coronaAdType).isLoaded());
 
             return 1;
         }
@@ -756,16 +3356,16 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.hide( adType )";
+            final String logContext = "applovin.hide( adType )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
             // check number of arguments
             int nargs = L.getTop();
             if (nargs != 1) {
-                logMsg(ERROR_MSG, "Expected 1 argument, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 argument, got ", nargs);
                 return 0;
             }
 
@@ -775,38 +3375,46 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             if (L.type(1) == LuaType.STRING) {
                 adType = L.toString(1);
             } else {
-                logMsg(ERROR_MSG, "adType (string) expected, got: " + L.typeName(1));
+                logMsg(LOG_ERROR, logContext, "adType (string) expected, got: ", L.typeName(1));
                 return 0;
             }
 
             // validate
             if (!adType.equals(TYPE_BANNER)) {
-                logMsg(ERROR_MSG, "Invalid adType '" + adType + "'. Only banners han be hidden");
+                logMsg(LOG_ERROR, logContext, "Invalid adType '", adType, "'. Only banners han be hidden");
                 return 0;
             }
 
-            CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_BANNER);
-            if ((adStatus == null) || (adStatus.ad == null) || (!adStatus.isLoaded && !adStatus.bannerIsVisible)) {
-                logMsg(ERROR_MSG, "Banner not loaded");
+            final CoronaAdTypeState adTypeState = getAdTypeState(CoronaAdType.BANNER);
+            if (!adTypeState.isLoaded()) {
+                logMsg(LOG_ERROR, logContext, "Banner not loaded");
                 return 0;
             }
 
             final CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
-            final CoronaAdStatus fAdStatus = adStatus;
 
             if (coronaActivity != null) {
-                coronaActivity.runOnUiThread(new Runnable() {
+                runOnUiThreadTimed(coronaActivity, "hide", TYPE_BANNER, new Runnable() {
                     @Override
                     public void run() {
+                        // a banner released under memory pressure stays released
+                        trimmedBannerSize = null;
+
+                        CoronaAdStatus adStatus = adTypeState.bannerStatus;
+                        AppLovinAdView bannerAd = adTypeState.bannerAd;
+                        AppLovinAdSize bannerAdSize = adTypeState.bannerAdSize;
+                        if ((adStatus == null) || (bannerAd == null)) { // already hidden
+                            return;
+                        }
+
+                        cancelBannerBuffer(adTypeState);
+
                         // send custom hidden event
-                        applovinBannerDelegate.coronaBannerHidden(fAdStatus.ad);
-
-                        AppLovinAdView bannerAd = (AppLovinAdView) applovinObjects.get(USER_BANNER_INSTANCE_KEY);
-                        bannerAd.removeAllViews();
-                        bannerAd.destroy();
-                        fAdStatus.dealloc();
-                        applovinObjects.remove(TYPE_BANNER);
-                        applovinObjects.remove(USER_BANNER_INSTANCE_KEY);
+                        applovinBannerDelegate.coronaBannerHidden(adStatus.ad);
+
+                        // hide the view in place and keep it for the next load of the same size
+                        bannerViewPool.release(bannerAdSize, bannerAd);
+                        adTypeState.clearBanner();
                     }
                 });
             }
@@ -826,9 +3434,9 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         // This method is executed when the Lua function is called
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.show( adType [, options] )";
+            final String logContext = "applovin.show( adType [, options] )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
@@ -836,7 +3444,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             // need to accept 0 args for backwards compatibility
             int nargs = L.getTop();
             if (nargs > 2) {
-                logMsg(ERROR_MSG, "Expected 1 or 2 arguments, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 or 2 arguments, got ", nargs);
                 return 0;
             }
 
@@ -855,7 +3463,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                     legacyAPI = false;
                     adType = L.toString(1);
                 } else {
-                    logMsg(ERROR_MSG, "adType (string) expected, got: " + L.typeName(1));
+                    logMsg(LOG_ERROR, logContext, "adType (string) expected, got: ", L.typeName(1));
                     return 0;
                 }
             }
@@ -867,43 +3475,47 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                 } else if (L.type(2) == LuaType.TABLE) {
                     for (L.pushNil(); L.next(2); L.pop(1)) {
                         if (L.type(-2) != LuaType.STRING) {
-                            logMsg(ERROR_MSG, "options must be a key/value table");
+                            logMsg(LOG_ERROR, logContext, "options must be a key/value table");
                             return 0;
                         }
 
                         String key = L.toString(-2);
+                        LuaType valueType = L.type(-1);
 
-                        if (key.equals("placement")) {
-                            if (L.type(-1) == LuaType.STRING) {
-                                placement = L.toString(-1);
-                            } else {
-                                logMsg(ERROR_MSG, "options.placement (string) expected, got: " + L.typeName(-1));
-                                return 0;
-                            }
-                        } else if (key.equals("y")) {
-                            if (L.type(-1) == LuaType.STRING) {
-                                yAlign = L.toString(-1);
-                            } else if (L.type(-1) == LuaType.NUMBER) {
-                                yOffset = L.toNumber(-1);
-                            } else {
-                                logMsg(ERROR_MSG, "options.y (string or number) expected, got: " + L.typeName(-1));
+                        switch (key) {
+                            case "placement":
+                                if (valueType == LuaType.STRING) {
+                                    placement = L.toString(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.placement (string) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            case "y":
+                                if (valueType == LuaType.STRING) {
+                                    yAlign = L.toString(-1);
+                                } else if (valueType == LuaType.NUMBER) {
+                                    yOffset = L.toNumber(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.y (string or number) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            default:
+                                logMsg(LOG_ERROR, logContext, "Invalid option '", key, "'");
                                 return 0;
-                            }
-                        } else {
-                            logMsg(ERROR_MSG, "Invalid option '" + key + "'");
-                            return 0;
                         }
                     }
                 } else {
-                    logMsg(ERROR_MSG, "options (table) expected, got: " + L.typeName(2));
+                    logMsg(LOG_ERROR, logContext, "options (table) expected, got: ", L.typeName(2));
                     return 0;
                 }
             }
 
             // validate
             if (!legacyAPI) {
-                if (!validAdTypes.contains(adType)) {
-                    logMsg(ERROR_MSG, "Invalid adType '" + adType + "'");
+                if (CoronaAdType.fromTypeName(adType) == null) {
+                    logMsg(LOG_ERROR, logContext, "Invalid adType '", adType, "'");
                     return 0;
                 }
 
@@ -915,7 +3527,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
                 if (yAlign != null) {
                     if (!validBannerPositions.contains(yAlign)) {
-                        logMsg(ERROR_MSG, "y '" + yAlign + "' invalid");
+                        logMsg(LOG_ERROR, logContext, "y '", yAlign, "' invalid");
                         return 0;
                     }
                 }
@@ -927,74 +3539,80 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             final String fAdType = adType;
             final String fYAlign = yAlign;
             final double fYOffset = yOffset;
+            final long showRequestTime = SystemClock.elapsedRealtime();
 
             if (coronaActivity != null) {
                 Runnable runnableActivity = new Runnable() {
                     public void run() {
                         if (fRewarded) {
-                            CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_REWARDEDVIDEO);
-                            if ((adStatus == null) || (adStatus.ad == null) || !adStatus.isLoaded) {
-                                logMsg(ERROR_MSG, "Rewarded video not loaded");
+                            CoronaAdPool adPool = getAdTypeState(CoronaAdType.REWARDEDVIDEO).adPool;
+                            applovinRewardedDelegate.checkAdExpiry();
+                            CoronaAdStatus adStatus = adPool.pollReadyAd();
+                            if ((adStatus == null) || !adStatus.isLoaded || (adStatus.rewardedSlot == null)) {
+                                logMsg(LOG_ERROR, logContext, "Rewarded video not loaded");
                                 return;
                             }
 
-                            AppLovinIncentivizedInterstitial rewardedAd = (AppLovinIncentivizedInterstitial) applovinObjects.get(USER_REWARDEDVIDEO_INSTANCE_KEY);
+                            AppLovinIncentivizedInterstitial rewardedAd = adStatus.rewardedSlot.rewardedAd;
+                            applovinRewardedDelegate.adTypeState.showPlacement = fPlacement;
                             applovinRewardedDelegate.coronaAdDisplayed(adStatus.ad);
-
-                            if (fPlacement != null) {
-                                rewardedAd.show(coronaActivity, fPlacement, applovinRewardedDelegate, applovinRewardedDelegate, applovinRewardedDelegate, applovinRewardedDelegate);
-                                // yeah, it looks wonky with the same delegate listener listed multiple times, but the SDK separates each listener
-                                // and the plugin has integrated all of them into one
-                            } else {
-                                rewardedAd.show(coronaActivity, applovinRewardedDelegate, applovinRewardedDelegate, applovinRewardedDelegate, applovinRewardedDelegate);
-                            }
+                            applovinRewardedDelegate.adTypeState.metrics.showCompleted(fPlacement, SystemClock.elapsedRealtime() - showRequestTime);
+
+                            // the instance can preload again once this ad has been hidden.
+                            // release a previous one in case its hidden callback never arrived
+                            CoronaAdTypeState adTypeState = applovinRewardedDelegate.adTypeState;
+                            adPool.releaseRewardedSlot(adTypeState.showingRewardedSlot);
+                            adTypeState.showingRewardedSlot = adStatus.rewardedSlot;
+                            adStatus.dealloc();
+
+                            // yeah, it looks wonky with the same delegate listener listed multiple times, but the SDK separates each listener
+                            // and the plugin has integrated all of them into one
+                            adProvider.showRewarded(coronaActivity, rewardedAd, fPlacement, applovinRewardedDelegate, applovinRewardedDelegate, applovinRewardedDelegate, applovinRewardedDelegate);
                         } else { // interstitial or banner
                             if (fAdType != null && fAdType.equals(TYPE_BANNER)) {
-                                CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_BANNER);
-                                if ((adStatus == null) || (adStatus.ad == null) || (!adStatus.isLoaded && !adStatus.bannerIsVisible)) {
-                                    logMsg(ERROR_MSG, "Banner not loaded");
+                                CoronaAdTypeState adTypeState = getAdTypeState(CoronaAdType.BANNER);
+                                CoronaAdState adState = adTypeState.getState();
+                                CoronaAdStatus adStatus = adTypeState.bannerStatus;
+                                AppLovinAdView bannerAd = adTypeState.bannerAd;
+                                if (adState == CoronaAdState.SHOWING) {
+                                    logMsg(LOG_ERROR, logContext, "Banner already visable");
                                     return;
-                                } else if (adStatus.bannerIsVisible) {
-                                    logMsg(ERROR_MSG, "Banner already visable");
+                                } else if ((adState != CoronaAdState.READY) || (adStatus == null) || (bannerAd == null)) {
+                                    logMsg(LOG_ERROR, logContext, "Banner not loaded");
                                     return;
                                 }
 
-                                AppLovinAdView bannerAd = (AppLovinAdView) applovinObjects.get(USER_BANNER_INSTANCE_KEY);
+                                applovinBannerDelegate.adTypeState.showPlacement = fPlacement;
                                 applovinBannerDelegate.coronaAdDisplayed(adStatus.ad);
+                                adTypeState.metrics.showCompleted(fPlacement, SystemClock.elapsedRealtime() - showRequestTime);
 
-                                // remove old layout
-                                if (bannerAd.getParent() != null) {
-                                    coronaActivity.getOverlayView().removeView(bannerAd);
-                                }
+                                // an attached banner keeps its layout params, they are updated in place
+                                boolean isAttached = bannerAd.getParent() != null;
+                                FrameLayout.LayoutParams params;
 
-                                // set final layout params
-                                FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
-                                        FrameLayout.LayoutParams.WRAP_CONTENT,
-                                        FrameLayout.LayoutParams.WRAP_CONTENT
-                                );
+                                if (isAttached && (bannerAd.getLayoutParams() instanceof FrameLayout.LayoutParams)) {
+                                    params = (FrameLayout.LayoutParams) bannerAd.getLayoutParams();
+                                    params.topMargin = 0;
+                                    params.bottomMargin = 0;
+                                } else {
+                                    params = new FrameLayout.LayoutParams(
+                                            FrameLayout.LayoutParams.WRAP_CONTENT,
+                                            FrameLayout.LayoutParams.WRAP_CONTENT
+                                    );
+                                }
 
                                 // set the banner position
                                 if (fYAlign == null) {
-                                    Display display = coronaActivity.getWindowManager().getDefaultDisplay();
-                                    int orientation = coronaActivity.getResources().getConfiguration().orientation;
-                                    int orientedHeight;
-
-                                    Point size = new Point();
-                                    display.getSize(size);
-
-                                    if (orientation == ORIENTATION_PORTRAIT) {
-                                        orientedHeight = size.y;
-                                    } else {
-                                        orientedHeight = size.x;
-                                    }
+                                    updateDisplayMetrics(coronaActivity);
+                                    int orientedHeight = orientedDisplayHeight;
 
-                                    double newBannerY = ceil(fYOffset * (double) applovinObjects.get(Y_RATIO_KEY));
+                                    double newBannerY = ceil(fYOffset * yRatio);
 
                                     // make sure the banner frame is visible.
                                     // adjust it if the user has specified 'y' which will render it partially off-screen
                                     if (newBannerY >= 0) { // offset from top
                                         if (newBannerY + bannerAd.getHeight() > orientedHeight) {
-                                            logMsg(WARNING_MSG, "Banner y position off screen. Adjusting position.");
+                                            logMsg(LOG_WARNING, logContext, "Banner y position off screen. Adjusting position.");
                                             params.gravity = Gravity.BOTTOM | Gravity.CENTER;
                                         } else {
                                             params.gravity = Gravity.TOP | Gravity.CENTER;
@@ -1002,7 +3620,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                                         }
                                     } else { // offset from bottom
                                         if (orientedHeight - bannerAd.getHeight() + newBannerY < 0) {
-                                            logMsg(WARNING_MSG, "Banner y position off screen. Adjusting position.");
+                                            logMsg(LOG_WARNING, logContext, "Banner y position off screen. Adjusting position.");
                                             params.gravity = Gravity.TOP | Gravity.CENTER;
                                         } else {
                                             params.gravity = Gravity.BOTTOM | Gravity.CENTER;
@@ -1024,31 +3642,43 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
                                 }
 
                                 // display the banner
-                                coronaActivity.getOverlayView().addView(bannerAd, params);
+                                if (isAttached) {
+                                    bannerAd.setLayoutParams(params);
+                                } else {
+                                    coronaActivity.getOverlayView().addView(bannerAd, params);
+                                }
                                 bannerAd.setVisibility(View.VISIBLE);
+                                bannerAd.resume();
                                 bannerAd.bringToFront();
-                                adStatus.bannerIsVisible = true;
                             } else { // interstitial
-                                CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(TYPE_INTERSTITIAL);
-                                if ((adStatus == null) || (adStatus.ad == null) || !adStatus.isLoaded) {
-                                    logMsg(ERROR_MSG, "Interstitial not loaded");
+                                CoronaAdTypeState adTypeState = getAdTypeState(CoronaAdType.INTERSTITIAL);
+                                applovinInterstitialDelegate.checkAdExpiry();
+                                CoronaAdStatus adStatus = adTypeState.adPool.pollReadyAd();
+                                AppLovinSdk activeSdk = userSdk;
+                                if ((adStatus == null) || !adStatus.isLoaded || (activeSdk == null)) {
+                                    logMsg(LOG_ERROR, logContext, "Interstitial not loaded");
                                     return;
                                 }
 
-                                AppLovinInterstitialAdDialog interstitialAd = (AppLovinInterstitialAdDialog) applovinObjects.get(USER_INTERSTITIAL_INSTANCE_KEY);
+                                applovinInterstitialDelegate.adTypeState.showPlacement = fPlacement;
                                 applovinInterstitialDelegate.coronaAdDisplayed(adStatus.ad);
+                                adTypeState.metrics.showCompleted(fPlacement, SystemClock.elapsedRealtime() - showRequestTime);
 
-                                interstitialAd.showAndRender(adStatus.ad);
+                                adProvider.showInterstitial(coronaActivity, activeSdk, adStatus.ad, applovinInterstitialDelegate, applovinInterstitialDelegate, applovinInterstitialDelegate);
+                                adStatus.dealloc();
+
+                                // interstitials are fetched from the ad service, so the pool can be refilled right away
+                                refillAdPool(CoronaAdType.INTERSTITIAL);
 
                                 if (fPlacement != null) {
-                                    Log.w("Corona", "Placement argument is ignored");
+                                    logMsg(LOG_WARNING, logContext, "Placement argument is ignored");
                                 }
                             }
                         }
                     }
                 };
 
-                coronaActivity.runOnUiThread(runnableActivity);
+                runOnUiThreadTimed(coronaActivity, "show", fAdType, runnableActivity);
             }
 
             return 0;
@@ -1064,16 +3694,16 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.setUserDetails( options )";
+            final String logContext = "applovin.setUserDetails( options )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
             // check number of arguments
             int nargs = L.getTop();
             if (nargs != 1) {
-                logMsg(ERROR_MSG, "Expected 1 argument, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 argument, got ", nargs);
                 return 0;
             }
 
@@ -1083,41 +3713,38 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             if (L.type(1) == LuaType.TABLE) {
                 for (L.pushNil(); L.next(1); L.pop(1)) {
                     if (L.type(-2) != LuaType.STRING) {
-                        logMsg(ERROR_MSG, "options must be a key/value table");
+                        logMsg(LOG_ERROR, logContext, "options must be a key/value table");
                         return 0;
                     }
 
                     String key = L.toString(-2);
+                    LuaType valueType = L.type(-1);
 
                     if (key.equals("userId")) {
-                        if (L.type(-1) == LuaType.STRING) {
+                        if (valueType == LuaType.STRING) {
                             userId = L.toString(-1);
                         } else {
-                            logMsg(ERROR_MSG, "options.userId (string) expected, got: " + L.typeName(-1));
+                            logMsg(LOG_ERROR, logContext, "options.userId (string) expected, got: ", L.typeName(-1));
                             return 0;
                         }
                     } else {
-                        logMsg(ERROR_MSG, "Invalid option '" + key + "'");
+                        logMsg(LOG_ERROR, logContext, "Invalid option '", key, "'");
                         return 0;
                     }
                 }
             } else {
-                logMsg(ERROR_MSG, "options (table) expected, got " + L.typeName(1));
+                logMsg(LOG_ERROR, logContext, "options (table) expected, got ", L.typeName(1));
                 return 0;
             }
 
             // details can only be set on rewarded ads
-            AppLovinIncentivizedInterstitial rewardedAd = (AppLovinIncentivizedInterstitial) applovinObjects.get(USER_REWARDEDVIDEO_INSTANCE_KEY);
+            // save the user id so it can be applied to rewarded instances created later on
+            LuaLoader.userId = userId;
 
-            if (rewardedAd == null) {
-                // setting user details will only have effect on the developer's sdk instance
-                AppLovinSdk activeSdk = (AppLovinSdk) applovinObjects.get(USER_SDK_KEY);
-                rewardedAd = AppLovinIncentivizedInterstitial.create(activeSdk);
-                applovinObjects.put(USER_REWARDEDVIDEO_INSTANCE_KEY, rewardedAd);
+            for (CoronaRewardedSlot rewardedSlot : getAdTypeState(CoronaAdType.REWARDEDVIDEO).adPool.getRewardedSlots()) {
+                rewardedSlot.rewardedAd.setUserIdentifier(userId);
             }
 
-            rewardedAd.setUserIdentifier(userId);
-
             return 0;
         }
     }
@@ -1131,16 +3758,16 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.setHasUserConsent( bool )";
+            final String logContext = "applovin.setHasUserConsent( bool )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
             // check number of arguments
             int nargs = L.getTop();
             if (nargs != 1) {
-                logMsg(ERROR_MSG, "Expected 1 argument, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 argument, got ", nargs);
                 return 0;
             }
 
@@ -1150,7 +3777,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             if (L.type(1) == LuaType.BOOLEAN) {
                 setHasUserConsent = L.toBoolean(1);
             } else {
-                logMsg(ERROR_MSG, "setHasUserConsent (bool) expected, got " + L.typeName(1));
+                logMsg(LOG_ERROR, logContext, "setHasUserConsent (bool) expected, got ", L.typeName(1));
                 return 0;
             }
 
@@ -1169,16 +3796,16 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.setIsAgeRestrictedUser( bool )";
+            final String logContext = "applovin.setIsAgeRestrictedUser( bool )";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
             // check number of arguments
             int nargs = L.getTop();
             if (nargs != 1) {
-                logMsg(ERROR_MSG, "Expected 1 argument, got " + nargs);
+                logMsg(LOG_ERROR, logContext, "Expected 1 argument, got ", nargs);
                 return 0;
             }
 
@@ -1188,7 +3815,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
             if (L.type(1) == LuaType.BOOLEAN) {
                 isAgeRestrictedUser = L.toBoolean(1);
             } else {
-                logMsg(ERROR_MSG, "setIsAgeRestrictedUser (bool) expected, got " + L.typeName(1));
+                logMsg(LOG_ERROR, logContext, "setIsAgeRestrictedUser (bool) expected, got ", L.typeName(1));
                 return 0;
             }
 
@@ -1206,9 +3833,9 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public int invoke(LuaState L) {
-            functionSignature = "applovin.showDebugger()";
+            final String logContext = "applovin.showDebugger()";
 
-            if (!isSDKInitialized()) {
+            if (!isSDKInitialized(logContext)) {
                 return 0;
             }
 
@@ -1217,16 +3844,272 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         }
     }
 
+    // [Lua] applovin.getAdCounts()
+    private class GetAdCounts implements NamedJavaFunction {
+        @Override
+        public String getName() {
+            return "getAdCounts";
+        }
+
+        @Override
+        public int invoke(LuaState L) {
+            final String logContext = "applovin.getAdCounts()";
+
+            if (!isSDKInitialized(logContext)) {
+                return 0;
+            }
+
+            L.newTable(0, adTypeStates.length);
+            for (CoronaAdTypeState adTypeState : adTypeStates) {
+                L.pushNumber(adTypeState.loadedAdCount.get());
+                L.setField(-2, adTypeState.adType.typeName);
+            }
+
+            return 1;
+        }
+    }
+
+    // [Lua] applovin.getMetrics()
+    private class GetMetrics implements NamedJavaFunction {
+        @Override
+        public String getName() {
+            return "getMetrics";
+        }
+
+        @Override
+        public int invoke(LuaState L) {
+            final String logContext = "applovin.getMetrics()";
+
+            if (!isSDKInitialized(logContext)) {
+                return 0;
+            }
+
+            L.newTable(0, adTypeStates.length + 1);
+            for (CoronaAdTypeState adTypeState : adTypeStates) {
+                adTypeState.metrics.pushSnapshot(L);
+                L.setField(-2, adTypeState.adType.typeName);
+            }
+            slowUiOperations.pushSnapshot(L);
+            L.setField(-2, "slowUiOperations");
+
+            return 1;
+        }
+    }
+
+    // [Lua] applovin.getDiagnosticLog()
+    private class GetDiagnosticLog implements NamedJavaFunction {
+        @Override
+        public String getName() {
+            return "getDiagnosticLog";
+        }
+
+        @Override
+        public int invoke(LuaState L) {
+            final String logContext = "applovin.getDiagnosticLog()";
+
+            if (!isSDKInitialized(logContext)) {
+                return 0;
+            }
+
+            diagnosticLog.pushSnapshot(L);
+            return 1;
+        }
+    }
+
+    // [Lua] applovin.readEventJournal( [options] )
+    private class ReadEventJournal implements NamedJavaFunction {
+        @Override
+        public String getName() {
+            return "readEventJournal";
+        }
+
+        @Override
+        public int invoke(LuaState L) {
+            final String logContext = "applovin.readEventJournal( [options] )";
+
+            int offset = 0;
+            int limit = Integer.MAX_VALUE;
+
+            // get options table
+            if (!L.isNoneOrNil(1)) {
+                if (L.type(1) == LuaType.TABLE) {
+                    for (L.pushNil(); L.next(1); L.pop(1)) {
+                        if (L.type(-2) != LuaType.STRING) {
+                            logMsg(LOG_ERROR, logContext, "options must be a key/value table");
+                            return 0;
+                        }
+
+                        String key = L.toString(-2);
+                        LuaType valueType = L.type(-1);
+
+                        switch (key) {
+                            case "offset":
+                                if (valueType == LuaType.NUMBER) {
+                                    offset = (int) L.toNumber(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.offset (number) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            case "limit":
+                                if (valueType == LuaType.NUMBER) {
+                                    limit = (int) L.toNumber(-1);
+                                } else {
+                                    logMsg(LOG_ERROR, logContext, "options.limit (number) expected, got: ", L.typeName(-1));
+                                    return 0;
+                                }
+                                break;
+                            default:
+                                logMsg(LOG_ERROR, logContext, "Invalid option '", key, "'");
+                                return 0;
+                        }
+                    }
+                } else {
+                    logMsg(LOG_ERROR, logContext, "options (table) expected, got ", L.typeName(1));
+                    return 0;
+                }
+            }
+
+            if (offset < 0) {
+                logMsg(LOG_ERROR, logContext, "options.offset must not be negative");
+                return 0;
+            }
+            if (limit < 0) {
+                logMsg(LOG_ERROR, logContext, "options.limit must not be negative");
+                return 0;
+            }
+
+            // the files of an earlier session can be read without init() or with the journal off
+            Context context = CoronaEnvironment.getApplicationContext();
+            if (context == null) {
+                logMsg(LOG_ERROR, logContext, "No application context");
+                return 0;
+            }
+
+            int top = L.getTop();
+            try {
+                CoronaEventJournal.pushRecords(L, new File(context.getFilesDir(), JOURNAL_FILE_NAME), offset, limit);
+            } catch (IOException e) {
+                L.setTop(top);
+                logMsg(LOG_ERROR, logContext, "Can't read the event journal: ", e.getMessage());
+                return 0;
+            }
+
+            return 1;
+        }
+    }
+
     // ----------------------------------------------------------------------------
     // delegate implementation
     // ----------------------------------------------------------------------------
 
     private class CoronaAppLovinDelegate implements AppLovinAdLoadListener, AppLovinAdDisplayListener, AppLovinAdVideoPlaybackListener,
             AppLovinAdClickListener, AppLovinAdRewardListener {
-        String adType;
+        final String adType;
+        final CoronaAdTypeState adTypeState;
+
+        // reloads the ad type after a failed load (posted to the main thread)
+        final CoronaTimedRunnable retryLoadRunnable;
+
+        // drops expired pooled ads and loads fresh ones (posted to the main thread)
+        final CoronaTimedRunnable adExpiryRunnable;
+
+        CoronaAppLovinDelegate(CoronaAdType coronaAdType) {
+            this.adType = coronaAdType.typeName;
+            this.adTypeState = getAdTypeState(coronaAdType);
+
+            this.retryLoadRunnable = new CoronaTimedRunnable("retryLoad", adType) {
+                @Override
+                void runTimed() {
+                    CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+                    AppLovinSdk activeSdk = userSdk;
+                    if ((coronaActivity == null) || (activeSdk == null)) {
+                        return;
+                    }
 
-        CoronaAppLovinDelegate(String adType) {
-            this.adType = adType;
+                    if (isSuspended && deferLoad(this, adType)) {
+                        return;
+                    }
+
+                    if (adTypeState.adType == CoronaAdType.BANNER) {
+                        AppLovinAdView bannerAd = adTypeState.bannerAd;
+                        if (bannerAd != null) {
+                            adTypeState.loadStarted();
+                            adProvider.loadBanner(bannerAd, CoronaAppLovinDelegate.this);
+                        }
+                    } else {
+                        fillAdPool(activeSdk, adTypeState.adType);
+                    }
+                }
+            };
+
+            this.adExpiryRunnable = new CoronaTimedRunnable("expireAds", adType) {
+                @Override
+                void runTimed() {
+                    checkAdExpiry();
+                }
+            };
+        }
+
+        // errors which may go away by loading again later
+        boolean isRetryableErrorCode(int errorCode) {
+            switch (errorCode) {
+                case AppLovinErrorCodes.NO_FILL:
+                case AppLovinErrorCodes.FETCH_AD_TIMEOUT:
+                case AppLovinErrorCodes.NO_NETWORK:
+                case AppLovinErrorCodes.UNSPECIFIED_ERROR:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        // schedule a reload with capped exponential backoff and jitter.
+        // returns the retry attempt number, or 0 if no retry was scheduled
+        int scheduleLoadRetry(int errorCode) {
+            if ((maxLoadRetries <= 0) || !isRetryableErrorCode(errorCode)) {
+                adTypeState.loadRetryCount.set(0);
+                return 0;
+            }
+
+            int retryAttempt = adTypeState.loadRetryCount.incrementAndGet();
+            if (retryAttempt > maxLoadRetries) {
+                adTypeState.loadRetryCount.set(0);
+                return 0;
+            }
+
+            long delay = Math.min(LOAD_RETRY_BASE_DELAY_MS << Math.min(retryAttempt - 1, 16), LOAD_RETRY_MAX_DELAY_MS);
+            delay = delay / 2 + (long) (loadRetryJitter.nextDouble() * (delay / 2));
+
+            mainHandler.removeCallbacks(retryLoadRunnable);
+            mainHandler.postDelayed(retryLoadRunnable, delay);
+
+            return retryAttempt;
+        }
+
+        // drop the expired ads of a fullscreen ad type, reload them in the background and
+        // schedule the next check for when the oldest remaining ad expires (UI thread only)
+        void checkAdExpiry() {
+            long ttl = adTtlMs;
+            CoronaAdPool adPool = adTypeState.adPool;
+            if ((ttl <= 0) || (adPool == null)) {
+                return;
+            }
+
+            long now = SystemClock.elapsedRealtime();
+            if (adTypeState.dropExpiredAds(now) > 0) {
+                CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+                AppLovinSdk activeSdk = userSdk;
+                if ((coronaActivity != null) && (activeSdk != null)) {
+                    fillAdPool(activeSdk, adTypeState.adType);
+                }
+            }
+
+            mainHandler.removeCallbacks(adExpiryRunnable);
+            CoronaAdStatus oldestAdStatus = adPool.peekReadyAd();
+            if (oldestAdStatus != null) {
+                mainHandler.postDelayed(adExpiryRunnable, Math.max(0, oldestAdStatus.loadTime + ttl - now));
+            }
         }
 
         String getErrorMessageFromErrorCode(int errorCode) {
@@ -1279,38 +4162,50 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public void adReceived(AppLovinAd appLovinAd) {
-            CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(adType);
+            adReceived(appLovinAd, null);
+        }
 
-            if (adStatus != null) {
-                adStatus.ad = appLovinAd;
-                adStatus.isLoaded = true;
+        void adReceived(AppLovinAd appLovinAd, CoronaRewardedSlot rewardedSlot) {
+            // ignore ads arriving after the ad objects have been released
+            boolean isActive = (adTypeState.adType == CoronaAdType.BANNER) ? (adTypeState.bannerAd != null) : !adTypeState.isExpired();
 
-                // send Corona Lua event
-                Map<String, Object> coronaEvent = new HashMap<>();
-                coronaEvent.put(EVENT_PHASE_KEY, PHASE_LOADED);
-                coronaEvent.put(EVENT_TYPE_KEY, adType);
-                dispatchLuaEvent(coronaEvent);
+            if (isActive) {
+                adTypeState.loadFinished(new CoronaAdStatus(appLovinAd, rewardedSlot));
+                adTypeState.loadRetryCount.set(0);
+                adTypeState.metrics.loadsSucceeded.incrementAndGet();
 
-                // increment saved ad count
-                CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
-                if (coronaActivity != null) {
-                    SharedPreferences sharedPref = coronaActivity.getPreferences(Context.MODE_PRIVATE);
-                    long currentAdCount = sharedPref.getLong(adType, 0);
-                    SharedPreferences.Editor editor = sharedPref.edit();
-                    editor.putLong(adType, ++currentAdCount);
-                    editor.apply();
+                // make sure an expiry check is scheduled for the pool
+                if ((adTypeState.adPool != null) && (adTtlMs > 0)) {
+                    mainHandler.removeCallbacks(adExpiryRunnable);
+                    mainHandler.post(adExpiryRunnable);
                 }
+
+                // send Corona Lua event
+                coronaAdLoaded();
+
+                // increment ad count (saved on suspend/exit)
+                adTypeState.loadedAdCount.incrementAndGet();
+                adCountsChanged.set(true);
             }
         }
 
+        public void coronaAdLoaded() {
+            // send Corona Lua event
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_LOADED, adType);
+            dispatchLuaEvent(coronaEvent);
+        }
+
         @Override
         public void failedToReceiveAd(int i) {
+            adTypeState.loadFinished(null);
+            adTypeState.metrics.loadFailed(i);
+
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_FAILED);
-            coronaEvent.put(CoronaLuaEvent.ISERROR_KEY, true);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
-            coronaEvent.put(CoronaLuaEvent.RESPONSE_KEY, getErrorMessageFromErrorCode(i));
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_FAILED, adType);
+            coronaEvent.isError = true;
+            coronaEvent.response = getErrorMessageFromErrorCode(i);
+            coronaEvent.errorCode = i;
+            coronaEvent.retryAttempt = scheduleLoadRetry(i);
             dispatchLuaEvent(coronaEvent);
         }
 
@@ -1319,24 +4214,18 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         @Override
         public void adClicked(AppLovinAd appLovinAd) {
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_CLICKED);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_CLICKED, adType);
             dispatchLuaEvent(coronaEvent);
         }
 
         // ----------------------------------------------------------------------------
 
         public void coronaAdDisplayed(AppLovinAd appLovinAd) {
-            CoronaAdStatus adStatus = (CoronaAdStatus) applovinObjects.get(adType);
-
-            if (adStatus != null) {
-                adStatus.isLoaded = false;
+            if (adTypeState.getState() != CoronaAdState.EXPIRED) {
+                adTypeState.setShowing(true);
 
                 // send Corona Lua event
-                Map<String, Object> coronaEvent = new HashMap<>();
-                coronaEvent.put(EVENT_PHASE_KEY, PHASE_DISPLAYED);
-                coronaEvent.put(EVENT_TYPE_KEY, adType);
+                CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_DISPLAYED, adType);
                 dispatchLuaEvent(coronaEvent);
             }
         }
@@ -1352,9 +4241,7 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         // call the hidden event for banners via coronaBannerHidden()
         public void coronaBannerHidden(AppLovinAd appLovinAd) {
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_CLOSED);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_CLOSED, adType);
             dispatchLuaEvent(coronaEvent);
         }
 
@@ -1362,12 +4249,20 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         public void adHidden(AppLovinAd appLovinAd) {
             // since the SDK calls adHidden erratically the plugin will manually
             // call the hidden event for banners via coronaBannerHidden()
-            if (!adType.equals(TYPE_BANNER)) {
+            if (adTypeState.adType != CoronaAdType.BANNER) {
+                adTypeState.setShowing(false);
+
                 // send Corona Lua event
-                Map<String, Object> coronaEvent = new HashMap<>();
-                coronaEvent.put(EVENT_PHASE_KEY, PHASE_CLOSED);
-                coronaEvent.put(EVENT_TYPE_KEY, adType);
+                CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_CLOSED, adType);
                 dispatchLuaEvent(coronaEvent);
+
+                // rewarded instances can only preload again once the previous ad has been hidden
+                if (adTypeState.adType == CoronaAdType.REWARDEDVIDEO) {
+                    CoronaRewardedSlot rewardedSlot = adTypeState.showingRewardedSlot;
+                    adTypeState.showingRewardedSlot = null;
+                    adTypeState.adPool.releaseRewardedSlot(rewardedSlot);
+                    refillAdPool(CoronaAdType.REWARDEDVIDEO);
+                }
             }
         }
 
@@ -1376,28 +4271,17 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
         @Override
         public void videoPlaybackBegan(AppLovinAd appLovinAd) {
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_PLAYBACK_BEGAN);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_PLAYBACK_BEGAN, adType);
             dispatchLuaEvent(coronaEvent);
         }
 
         @Override
         public void videoPlaybackEnded(AppLovinAd appLovinAd, double percent, boolean full) {
-            // we need a Hashtable for Corona to recognize it
-            Hashtable<Object, Object> eventData = new Hashtable<>();
-            try {
-                eventData.put("percentPlayed", percent);
-                eventData.put("fullyWatched", full);
-            } catch (Exception e) {
-                System.err.println();
-            }
-
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_PLAYBACK_ENDED);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
-            coronaEvent.put(EVENT_DATA_KEY, eventData);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_PLAYBACK_ENDED, adType);
+            coronaEvent.dataKind = EVENT_DATA_PLAYBACK;
+            coronaEvent.percentPlayed = percent;
+            coronaEvent.fullyWatched = full;
             dispatchLuaEvent(coronaEvent);
         }
 
@@ -1405,66 +4289,139 @@ public class LuaLoader implements JavaFunction, CoronaRuntimeListener {
 
         @Override
         public void userRewardVerified(AppLovinAd appLovinAd, Map map) {
-            // we need to convert the map to a Hashtable for Corona to recognize it
-            Hashtable<Object, Object> eventData = new Hashtable<>();
-            eventData.putAll(map);
-
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_VALIDATION_SUCEEDED);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
-            coronaEvent.put(EVENT_DATA_KEY, eventData);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_VALIDATION_SUCEEDED, adType);
+            coronaEvent.dataKind = EVENT_DATA_MAP;
+            coronaEvent.dataMap = map;
             dispatchLuaEvent(coronaEvent);
         }
 
         @Override
         public void userOverQuota(AppLovinAd appLovinAd, Map map) {
-            // we need to convert the map to a Hashtable for Corona to recognize it
-            Hashtable<Object, Object> eventData = new Hashtable<>();
-            eventData.putAll(map);
-
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_VALIDATION_EXCEEDED_QUOTA);
-            coronaEvent.put(CoronaLuaEvent.ISERROR_KEY, true);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
-            coronaEvent.put(EVENT_DATA_KEY, eventData);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_VALIDATION_EXCEEDED_QUOTA, adType);
+            coronaEvent.isError = true;
+            coronaEvent.dataKind = EVENT_DATA_MAP;
+            coronaEvent.dataMap = map;
             dispatchLuaEvent(coronaEvent);
         }
 
         @Override
         public void userRewardRejected(AppLovinAd appLovinAd, Map map) {
-            // we need to convert the map to a Hashtable for Corona to recognize it
-            Hashtable<Object, Object> eventData = new Hashtable<>();
-            eventData.putAll(map);
-
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_VALIDATION_REJECTED);
-            coronaEvent.put(CoronaLuaEvent.ISERROR_KEY, true);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
-            coronaEvent.put(EVENT_DATA_KEY, eventData);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_VALIDATION_REJECTED, adType);
+            coronaEvent.isError = true;
+            coronaEvent.dataKind = EVENT_DATA_MAP;
+            coronaEvent.dataMap = map;
             dispatchLuaEvent(coronaEvent);
         }
 
         @Override
         public void validationRequestFailed(AppLovinAd appLovinAd, int i) {
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_VALIDATION_FAILED);
-            coronaEvent.put(CoronaLuaEvent.ISERROR_KEY, true);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
-            coronaEvent.put(EVENT_DATA_KEY, getErrorMessageFromErrorCode(i));
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_VALIDATION_FAILED, adType);
+            coronaEvent.isError = true;
+            coronaEvent.dataKind = EVENT_DATA_STRING;
+            coronaEvent.dataString = getErrorMessageFromErrorCode(i);
             dispatchLuaEvent(coronaEvent);
         }
 
         @Override
         public void userDeclinedToViewAd(AppLovinAd appLovinAd) {
             // send Corona Lua event
-            Map<String, Object> coronaEvent = new HashMap<>();
-            coronaEvent.put(EVENT_PHASE_KEY, PHASE_DECLINED_TO_VIEW);
-            coronaEvent.put(EVENT_TYPE_KEY, adType);
+            CoronaEventRecord coronaEvent = obtainLuaEvent(PHASE_DECLINED_TO_VIEW, adType);
             dispatchLuaEvent(coronaEvent);
         }
     }
+
+    // a rewarded instance in the rewarded video pool, forwarding load callbacks to the rewarded delegate
+    private class CoronaRewardedSlot implements AppLovinAdLoadListener {
+        final AppLovinIncentivizedInterstitial rewardedAd;
+
+        CoronaRewardedSlot(AppLovinIncentivizedInterstitial rewardedAd) {
+            this.rewardedAd = rewardedAd;
+        }
+
+        @Override
+        public void adReceived(AppLovinAd appLovinAd) {
+            applovinRewardedDelegate.adReceived(appLovinAd, this);
+        }
+
+        @Override
+        public void failedToReceiveAd(int i) {
+            getAdTypeState(CoronaAdType.REWARDEDVIDEO).adPool.releaseRewardedSlot(this);
+
+            applovinRewardedDelegate.failedToReceiveAd(i);
+        }
+    }
+
+    // load listener of a replacement banner loading off-screen (load option 'doubleBuffer').
+    // banner callbacks arrive on the main thread
+    private class CoronaBannerBuffer implements AppLovinAdLoadListener {
+        final AppLovinAdView bannerAd;
+        final AppLovinAdSize adSize;
+
+        CoronaBannerBuffer(AppLovinAdView bannerAd, AppLovinAdSize adSize) {
+            this.bannerAd = bannerAd;
+            this.adSize = adSize;
+        }
+
+        @Override
+        public void adReceived(AppLovinAd appLovinAd) {
+            CoronaAdTypeState adTypeState = getAdTypeState(CoronaAdType.BANNER);
+            if (adTypeState.bannerBuffer != this) { // cancelled
+                return;
+            }
+            long startTime = SystemClock.elapsedRealtime();
+            adTypeState.bannerBuffer = null;
+            bannerAd.setAdLoadListener(applovinBannerDelegate);
+
+            AppLovinAdView oldBannerAd = adTypeState.bannerAd;
+            AppLovinAdSize oldAdSize = adTypeState.bannerAdSize;
+            CoronaActivity coronaActivity = CoronaEnvironment.getCoronaActivity();
+            boolean isShowing = false;
+
+            // swap the banners in a single layout pass, the new one takes the layout of the old one
+            if (isBannerViewOnScreen(oldBannerAd) && (coronaActivity != null)) {
+                // copied field by field, the copy constructor needs API 19
+                FrameLayout.LayoutParams oldParams = (FrameLayout.LayoutParams) oldBannerAd.getLayoutParams();
+                FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(oldParams.width, oldParams.height, oldParams.gravity);
+                params.setMargins(oldParams.leftMargin, oldParams.topMargin, oldParams.rightMargin, oldParams.bottomMargin);
+                if (bannerAd.getParent() != null) {
+                    bannerAd.setLayoutParams(params);
+                } else {
+                    coronaActivity.getOverlayView().addView(bannerAd, params);
+                }
+                bannerAd.setVisibility(View.VISIBLE);
+                if (!isSuspended) { // otherwise onResumed() resumes it
+                    bannerAd.resume();
+                }
+                bannerAd.bringToFront();
+                oldBannerAd.setVisibility(View.GONE);
+                isShowing = true;
+            }
+
+            if ((oldBannerAd != null) && (oldBannerAd != bannerAd)) {
+                bannerViewPool.release(oldAdSize, oldBannerAd);
+            }
+
+            adTypeState.replaceBanner(bannerAd, adSize, isShowing);
+            recordUiOperation("swapBanner", TYPE_BANNER, startTime);
+            applovinBannerDelegate.adReceived(appLovinAd);
+        }
+
+        @Override
+        public void failedToReceiveAd(int i) {
+            CoronaAdTypeState adTypeState = getAdTypeState(CoronaAdType.BANNER);
+            if (adTypeState.bannerBuffer != this) { // cancelled
+                return;
+            }
+            adTypeState.bannerBuffer = null;
+            bannerAd.setAdLoadListener(applovinBannerDelegate);
+            bannerViewPool.release(adSize, bannerAd);
+
+            // the visible banner stays on screen
+            applovinBannerDelegate.failedToReceiveAd(i);
+        }
+    }
 }